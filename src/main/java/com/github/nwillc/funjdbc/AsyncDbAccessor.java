@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc;
+
+import com.github.nwillc.funjdbc.functions.Enricher;
+import com.github.nwillc.funjdbc.functions.Extractor;
+import com.github.nwillc.funjdbc.functions.SessionFunction;
+import com.github.nwillc.funjdbc.utils.TaskExecutors;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * An asynchronous view of a {@link DbAccessor}, running its operations on an executor and returning
+ * CompletableFutures, so that independent queries can run concurrently. By default operations run on
+ * virtual threads where available, see {@link TaskExecutors#perTask()}. The number of operations in flight
+ * at once is capped, so that a burst of cheap tasks can't exhaust the accessor's connections. Excess operations
+ * are queued rather than handed to the executor, and run by the threads of the operations in flight as they
+ * complete, so a burst never occupies more than the cap's worth of threads. The cap is per instance, so share one
+ * among the users of a connection pool. Query results are collected into lists, as a stream can't outlive its
+ * connection. Failures complete the future exceptionally with the original exception.
+ *
+ * @since 1.1.0
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class AsyncDbAccessor {
+    /**
+     * The default cap on operations in flight.
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 10;
+    private final DbAccessor accessor;
+    private final Executor executor;
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+    private final Queue<Operation<?>> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Create an asynchronous view of an accessor, with the default executor and cap.
+     *
+     * @param accessor the accessor
+     */
+    public AsyncDbAccessor(DbAccessor accessor) {
+        this(accessor, TaskExecutors.perTask(), DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * Create an asynchronous view of an accessor.
+     *
+     * @param accessor    the accessor
+     * @param executor    the executor to run operations on
+     * @param maxInFlight the most operations to run at once, typically the size of the accessor's connection pool
+     */
+    public AsyncDbAccessor(DbAccessor accessor, Executor executor, int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("Max in flight must be positive.");
+        }
+        this.accessor = accessor;
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Asynchronously extract results from a SQL query, as {@link DbAccessor#dbQuery(SqlStatement, Extractor)}.
+     *
+     * @param <T>          Type extracted
+     * @param sqlStatement The SQL statement
+     * @param extractor    The extractor to process the ResultSet with
+     * @return a future list of the extracted elements
+     */
+    public <T> CompletableFuture<List<T>> dbQuery(final SqlStatement sqlStatement, final Extractor<T> extractor) {
+        return dbQuery(sqlStatement, extractor, QueryOptions.DEFAULT);
+    }
+
+    /**
+     * Asynchronously extract results from a SQL query, as
+     * {@link DbAccessor#dbQuery(SqlStatement, Extractor, QueryOptions)}.
+     *
+     * @param <T>          Type extracted
+     * @param sqlStatement The SQL statement
+     * @param extractor    The extractor to process the ResultSet with
+     * @param options      The query options
+     * @return a future list of the extracted elements
+     */
+    public <T> CompletableFuture<List<T>> dbQuery(final SqlStatement sqlStatement, final Extractor<T> extractor,
+                                                  final QueryOptions options) {
+        return submit(db -> {
+            try (Stream<T> stream = db.dbQuery(sqlStatement, extractor, options)) {
+                return stream.collect(Collectors.toList());
+            }
+        });
+    }
+
+    /**
+     * Asynchronously extract the result of a SQL query returning at most one result, as
+     * {@link DbAccessor#dbFind(SqlStatement, Extractor)}.
+     *
+     * @param <T>          Type extracted
+     * @param sqlStatement The SQL statement
+     * @param extractor    The extractor to process the ResultSet with
+     * @return a future optional of the extracted element
+     */
+    public <T> CompletableFuture<Optional<T>> dbFind(final SqlStatement sqlStatement, final Extractor<T> extractor) {
+        return submit(db -> db.dbFind(sqlStatement, extractor));
+    }
+
+    /**
+     * Asynchronously execute an update, as {@link DbAccessor#dbUpdate(SqlStatement)}.
+     *
+     * @param sqlStatement The SQL statement
+     * @return a future count of rows updated
+     */
+    public CompletableFuture<Integer> dbUpdate(final SqlStatement sqlStatement) {
+        return submit(db -> db.dbUpdate(sqlStatement));
+    }
+
+    /**
+     * Asynchronously enrich a map of entities, as {@link DbAccessor#dbEnrich(SqlStatement, Extractor, Map, Enricher)}.
+     * The map should not be used until the future completes.
+     *
+     * @param <K>          the key type
+     * @param <V>          the entity type
+     * @param sqlStatement The SQL statement
+     * @param keyExtractor an Extractor to get the entity key from the detail records
+     * @param map          A map of entities the enrich
+     * @param enricher     a function to enrich an entity from the detail record
+     * @return a future completing when the enrichment is done
+     */
+    public <K, V> CompletableFuture<Void> dbEnrich(final SqlStatement sqlStatement, final Extractor<K> keyExtractor,
+                                                   final Map<K, V> map, final Enricher<V> enricher) {
+        return submit(db -> {
+            db.dbEnrich(sqlStatement, keyExtractor, map, enricher);
+            return null;
+        });
+    }
+
+    /**
+     * Asynchronously execute a statement, as {@link DbAccessor#dbExecute(SqlStatement)}.
+     *
+     * @param sqlStatement The SQL statement
+     * @return a future of whether the first result is a ResultSet
+     */
+    public CompletableFuture<Boolean> dbExecute(final SqlStatement sqlStatement) {
+        return submit(db -> db.dbExecute(sqlStatement));
+    }
+
+    /**
+     * Asynchronously perform work within a transaction, as {@link DbAccessor#dbTransaction(SessionFunction)}.
+     *
+     * @param <R>  the type of the result
+     * @param work the work to perform
+     * @return a future of the work's result
+     */
+    public <R> CompletableFuture<R> dbTransaction(final SessionFunction<R> work) {
+        return submit(db -> db.dbTransaction(work));
+    }
+
+    /**
+     * The number of operations currently running.
+     *
+     * @return operations in flight
+     */
+    public int getInFlight() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    /**
+     * The number of operations queued waiting for one in flight to complete.
+     *
+     * @return operations queued
+     */
+    public int getQueued() {
+        return pending.size();
+    }
+
+    private <R> CompletableFuture<R> submit(final SessionFunction<R> work) {
+        final Operation<R> operation = new Operation<>(work);
+        pending.add(operation);
+        drain();
+        return operation.future;
+    }
+
+    /**
+     * Hand queued operations to the executor while permits are available. Called after queuing and whenever a
+     * permit is released, so an operation is never left queued with a permit free.
+     */
+    private void drain() {
+        while (!pending.isEmpty() && inFlight.tryAcquire()) {
+            final Operation<?> operation = pending.poll();
+            if (operation == null) {
+                inFlight.release();
+                continue;
+            }
+            try {
+                executor.execute(operation);
+            } catch (RejectedExecutionException e) {
+                inFlight.release();
+                operation.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    private final class Operation<R> implements Runnable {
+        final CompletableFuture<R> future = new CompletableFuture<>();
+        final SessionFunction<R> work;
+
+        Operation(SessionFunction<R> work) {
+            this.work = work;
+        }
+
+        /**
+         * Perform this operation and then any queued, keeping the permit and thread, releasing the permit before
+         * the last completes so that its completion observes it released.
+         */
+        @Override
+        public void run() {
+            Operation<?> operation = this;
+            while (operation != null) {
+                operation = operation.perform();
+            }
+        }
+
+        @SuppressWarnings("PMD.AvoidCatchingThrowable")
+        private Operation<?> perform() {
+            R result = null;
+            Throwable failure = null;
+            try {
+                if (!future.isDone()) {
+                    result = work.apply(accessor);
+                }
+            } catch (Throwable t) {
+                failure = t;
+            }
+            final Operation<?> next = pending.poll();
+            if (next == null) {
+                inFlight.release();
+                drain();
+            }
+            if (failure == null) {
+                future.complete(result);
+            } else {
+                future.completeExceptionally(failure);
+            }
+            return next;
+        }
+    }
+}
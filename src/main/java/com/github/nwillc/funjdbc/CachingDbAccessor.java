@@ -0,0 +1,525 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc;
+
+import com.github.nwillc.funjdbc.functions.Binder;
+import com.github.nwillc.funjdbc.functions.Extractor;
+import com.github.nwillc.funjdbc.functions.Flow;
+import com.github.nwillc.funjdbc.functions.SessionFunction;
+import com.github.nwillc.funjdbc.utils.RowBatch;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A DbAccessor decorator caching the results of {@link #dbQuery(SqlStatement, Extractor, QueryOptions)} and
+ * {@link #dbFind(SqlStatement, Extractor)}, for reference data that's read far more often than it changes. Results
+ * are keyed by the statement's SQL and arguments, the extractor, and the query options, so extractors should be
+ * stable instances rather than capturing lambdas created per call. Cached query results are returned as fresh
+ * streams over an unmodifiable list. Entries expire after a per statement time to live, and the least recently
+ * used are evicted to keep within the maximum entry count and total weight, a result's weight being its row count.
+ * <p>
+ * <b>Only the list is unmodifiable, the extracted objects in it are shared by every caller receiving that result.</b>
+ * Extractors should produce immutable objects, or callers must not modify what they receive, as a change made by
+ * one caller is seen by all later hits until the entry is evicted or invalidated.
+ * <p>
+ * Chunked, partitioned and published queries are passed to the delegate uncached, as their results are consumed
+ * incrementally, and reused chunks in particular can't be retained.
+ * <p>
+ * Each entry depends on the tables its statement reads, parsed from the SQL or declared by a function. Updates,
+ * executes, batches and inserts made through this accessor invalidate the entries depending on the tables they
+ * write, or all entries if those can't be determined. Sessions and transactions invalidate all entries when they
+ * complete, and writes made by other means require {@link #invalidate(String...)}.
+ *
+ * @since 1.1.0
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class CachingDbAccessor implements DbAccessor {
+    private static final String KEYWORDS = "WHERE|JOIN|INNER|LEFT|RIGHT|FULL|CROSS|OUTER|NATURAL|ON|USING|GROUP|" +
+            "ORDER|HAVING|LIMIT|OFFSET|FETCH|UNION|EXCEPT|INTERSECT|MINUS|WINDOW|FOR|SET|VALUES|SELECT|DEFAULT";
+    private static final String NAME = "[\\w.$\"`]+(?:\\s+(?:AS\\s+)?(?!(?:" + KEYWORDS + ")\\b)[\\w$\"`]+)?";
+    private static final Pattern TABLES = Pattern.compile(
+            "\\b(?:FROM|JOIN|UPDATE|INTO|TABLE)\\s+(" + NAME + "(?:\\s*,\\s*" + NAME + ")*)",
+            Pattern.CASE_INSENSITIVE);
+    private final DbAccessor delegate;
+    private final int maxEntries;
+    private final long maxWeight;
+    private final ToLongFunction<SqlStatement> ttl;
+    private final Function<SqlStatement, Collection<String>> tables;
+    private final Map<List<Object>, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private long weight;
+
+    private CachingDbAccessor(Builder builder) {
+        delegate = builder.delegate;
+        maxEntries = builder.maxEntries;
+        maxWeight = builder.maxWeight;
+        ttl = builder.ttl;
+        tables = builder.tables;
+    }
+
+    /**
+     * Start building a caching decorator of an accessor.
+     *
+     * @param delegate the accessor to cache results of
+     * @return a builder
+     */
+    public static Builder builder(DbAccessor delegate) {
+        return new Builder(delegate);
+    }
+
+    /**
+     * Parse the names of the tables a SQL statement reads or writes, upper cased and without schema.
+     *
+     * @param sql the SQL text
+     * @return the table names
+     */
+    public static Set<String> tables(String sql) {
+        final Set<String> names = new HashSet<>();
+        final Matcher matcher = TABLES.matcher(sql);
+        while (matcher.find()) {
+            for (String element : matcher.group(1).split(",")) {
+                names.add(normalize(element.trim().split("\\s+")[0]));
+            }
+        }
+        return names;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return delegate.getConnection();
+    }
+
+    @Override
+    public StatementCache getStatementCache() {
+        return delegate.getStatementCache();
+    }
+
+    @Override
+    public <T> Stream<T> dbQuery(final SqlStatement sqlStatement, final Extractor<T> extractor,
+                                 final QueryOptions options) throws SQLException {
+        final long timeToLive = ttl.applyAsLong(sqlStatement);
+        if (timeToLive <= 0) {
+            return delegate.dbQuery(sqlStatement, extractor, options);
+        }
+        final List<Object> key = Arrays.asList("query", sqlStatement.key(), extractor, options);
+        List<T> rows = lookup(key);
+        if (rows == null) {
+            final long loading = generation.get();
+            try (Stream<T> stream = delegate.dbQuery(sqlStatement, extractor, options)) {
+                rows = Collections.unmodifiableList(stream.collect(Collectors.toList()));
+            }
+            store(key, sqlStatement, rows, timeToLive, loading);
+        }
+        return rows.stream();
+    }
+
+    @Override
+    public <T> Stream<RowBatch<T>> dbQueryChunked(final SqlStatement sqlStatement, final Extractor<T> extractor,
+                                                  final int chunkSize, final boolean reuse) throws SQLException {
+        return delegate.dbQueryChunked(sqlStatement, extractor, chunkSize, reuse);
+    }
+
+    @Override
+    public <T> Stream<T> dbQueryPartitioned(final SqlStatement template, final String keyColumn, final long min,
+                                            final long max, final int partitions, final Extractor<T> extractor) {
+        return delegate.dbQueryPartitioned(template, keyColumn, min, max, partitions, extractor);
+    }
+
+    @Override
+    public <T> Flow.Publisher<T> dbPublish(final SqlStatement sqlStatement, final Extractor<T> extractor,
+                                           final Executor executor) {
+        return delegate.dbPublish(sqlStatement, extractor, executor);
+    }
+
+    @Override
+    public <T> Optional<T> dbFind(final SqlStatement sqlStatement, final Extractor<T> extractor) throws SQLException {
+        final long timeToLive = ttl.applyAsLong(sqlStatement);
+        if (timeToLive <= 0) {
+            return delegate.dbFind(sqlStatement, extractor);
+        }
+        final List<Object> key = Arrays.asList("find", sqlStatement.key(), extractor);
+        List<T> rows = lookup(key);
+        if (rows == null) {
+            final long loading = generation.get();
+            final Optional<T> found = delegate.dbFind(sqlStatement, extractor);
+            rows = found.map(Collections::singletonList).orElse(Collections.emptyList());
+            store(key, sqlStatement, rows, timeToLive, loading);
+        }
+        return rows.isEmpty() ? Optional.empty() : Optional.of(rows.get(0));
+    }
+
+    @Override
+    public int dbUpdate(SqlStatement sqlStatement) throws SQLException {
+        try {
+            return delegate.dbUpdate(sqlStatement);
+        } finally {
+            invalidate(sqlStatement);
+        }
+    }
+
+    @Override
+    public boolean dbExecute(SqlStatement sqlStatement) throws SQLException {
+        try {
+            return delegate.dbExecute(sqlStatement);
+        } finally {
+            invalidate(sqlStatement);
+        }
+    }
+
+    @Override
+    public <T> long dbBatch(SqlStatement template, Stream<T> items, Binder<T> binder, int batchSize) throws SQLException {
+        try {
+            return delegate.dbBatch(template, items, binder, batchSize);
+        } finally {
+            invalidate(template);
+        }
+    }
+
+    @Override
+    public <T> long dbInsertBulk(SqlStatement template, Stream<T> items, Binder<T> binder, int maxParameters)
+            throws SQLException {
+        try {
+            return delegate.dbInsertBulk(template, items, binder, maxParameters);
+        } finally {
+            invalidate(template);
+        }
+    }
+
+    @Override
+    public <T, K> Stream<K> dbInsertBulkGetGeneratedKeys(SqlStatement template, Stream<T> items, Binder<T> binder,
+                                                         int maxParameters, Extractor<K> keyExtractor, String[] keys)
+            throws SQLException {
+        try {
+            return delegate.dbInsertBulkGetGeneratedKeys(template, items, binder, maxParameters, keyExtractor, keys);
+        } finally {
+            invalidate(template);
+        }
+    }
+
+    @Override
+    public <T> Stream<T> dbInsertGetGeneratedKeys(SqlStatement sqlStatement, Extractor<T> keyExtractor, String[] keys)
+            throws SQLException {
+        try {
+            return delegate.dbInsertGetGeneratedKeys(sqlStatement, keyExtractor, keys);
+        } finally {
+            invalidate(sqlStatement);
+        }
+    }
+
+    @Override
+    public <R> R dbSession(SessionFunction<R> work) throws SQLException {
+        try {
+            return delegate.dbSession(work);
+        } finally {
+            invalidateAll();
+        }
+    }
+
+    @Override
+    public <R> R dbTransaction(SessionFunction<R> work) throws SQLException {
+        try {
+            return delegate.dbTransaction(work);
+        } finally {
+            invalidateAll();
+        }
+    }
+
+    @Override
+    public <R> R dbTransaction(int isolation, SessionFunction<R> work) throws SQLException {
+        try {
+            return delegate.dbTransaction(isolation, work);
+        } finally {
+            invalidateAll();
+        }
+    }
+
+    /**
+     * Invalidate the entries depending on any of the given tables.
+     *
+     * @param tableNames the table names
+     */
+    public void invalidate(String... tableNames) {
+        final Set<String> names = new HashSet<>();
+        for (String name : tableNames) {
+            names.add(normalize(name));
+        }
+        synchronized (this) {
+            generation.incrementAndGet();
+            final Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                final Entry entry = iterator.next();
+                if (!Collections.disjoint(entry.tables, names)) {
+                    remove(iterator, entry);
+                    invalidations.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Invalidate all entries.
+     */
+    public synchronized void invalidateAll() {
+        generation.incrementAndGet();
+        invalidations.addAndGet(entries.size());
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * The number of entries cached.
+     *
+     * @return the entry count
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * The total weight, in rows, of the entries cached.
+     *
+     * @return the weight
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    /**
+     * The number of lookups satisfied from the cache.
+     *
+     * @return hit count
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * The number of lookups that queried the database.
+     *
+     * @return miss count
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * The number of entries removed because they expired or to keep within the cache's bounds.
+     *
+     * @return eviction count
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * The number of entries removed because their tables were written.
+     *
+     * @return invalidation count
+     */
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized <T> List<T> lookup(List<Object> key) {
+        final Entry entry = entries.get(key);
+        if (entry != null) {
+            if (entry.expires > System.currentTimeMillis()) {
+                hits.incrementAndGet();
+                return (List<T>) entry.rows;
+            }
+            entries.remove(key);
+            weight -= entry.weight;
+            evictions.incrementAndGet();
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    private synchronized void store(List<Object> key, SqlStatement sqlStatement, List<?> rows, long timeToLive,
+                                    long loading) {
+        if (generation.get() != loading) {
+            return;
+        }
+        final Entry entry = new Entry(rows, tableNames(sqlStatement), System.currentTimeMillis() + timeToLive);
+        final Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            weight -= previous.weight;
+        }
+        weight += entry.weight;
+        final Iterator<Entry> iterator = entries.values().iterator();
+        while ((entries.size() > maxEntries || weight > maxWeight) && iterator.hasNext()) {
+            remove(iterator, iterator.next());
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void remove(Iterator<Entry> iterator, Entry entry) {
+        iterator.remove();
+        weight -= entry.weight;
+    }
+
+    private void invalidate(SqlStatement sqlStatement) {
+        final Set<String> written = tableNames(sqlStatement);
+        if (written.isEmpty()) {
+            invalidateAll();
+        } else {
+            invalidate(written.toArray(new String[0]));
+        }
+    }
+
+    private Set<String> tableNames(SqlStatement sqlStatement) {
+        final Set<String> names = new HashSet<>();
+        for (String name : tables.apply(sqlStatement)) {
+            names.add(normalize(name));
+        }
+        return names;
+    }
+
+    private static String normalize(String name) {
+        final String unquoted = name.replaceAll("[\"`]", "");
+        return unquoted.substring(unquoted.lastIndexOf('.') + 1).toUpperCase(Locale.ROOT);
+    }
+
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    private static final class Entry {
+        final List<?> rows;
+        final Set<String> tables;
+        final long expires;
+        final long weight;
+
+        Entry(List<?> rows, Set<String> tables, long expires) {
+            this.rows = rows;
+            this.tables = tables;
+            this.expires = expires;
+            this.weight = Math.max(1, rows.size());
+        }
+    }
+
+    /**
+     * A builder for a {@link CachingDbAccessor}.
+     */
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    public static final class Builder {
+        private final DbAccessor delegate;
+        private int maxEntries = 1000;
+        private long maxWeight = Long.MAX_VALUE;
+        private ToLongFunction<SqlStatement> ttl = s -> 60_000;
+        private Function<SqlStatement, Collection<String>> tables = s -> tables(s.toString());
+
+        private Builder(DbAccessor delegate) {
+            if (delegate == null) {
+                throw new IllegalArgumentException("An accessor to decorate is required.");
+            }
+            this.delegate = delegate;
+        }
+
+        /**
+         * The most entries cached, default 1000.
+         *
+         * @param maxEntries the maximum entries
+         * @return this builder
+         */
+        public Builder withMaxEntries(int maxEntries) {
+            if (maxEntries < 1) {
+                throw new IllegalArgumentException("Maximum entries must be positive.");
+            }
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * The most rows cached across all entries, default unbounded.
+         *
+         * @param maxWeight the maximum weight
+         * @return this builder
+         */
+        public Builder withMaxWeight(long maxWeight) {
+            if (maxWeight < 1) {
+                throw new IllegalArgumentException("Maximum weight must be positive.");
+            }
+            this.maxWeight = maxWeight;
+            return this;
+        }
+
+        /**
+         * How long results are cached, default one minute.
+         *
+         * @param millis the time to live in milliseconds
+         * @return this builder
+         */
+        public Builder withTtl(long millis) {
+            return withTtl(s -> millis);
+        }
+
+        /**
+         * How long each statement's results are cached, a time to live of zero or less not caching them.
+         *
+         * @param ttl a function from statement to time to live in milliseconds
+         * @return this builder
+         */
+        public Builder withTtl(ToLongFunction<SqlStatement> ttl) {
+            this.ttl = ttl;
+            return this;
+        }
+
+        /**
+         * Declare the tables statements depend on, rather than parsing them from the SQL.
+         *
+         * @param tables a function from statement to table names
+         * @return this builder
+         */
+        public Builder withTables(Function<SqlStatement, Collection<String>> tables) {
+            this.tables = tables;
+            return this;
+        }
+
+        /**
+         * Build the caching accessor.
+         *
+         * @return the caching accessor
+         */
+        public CachingDbAccessor build() {
+            return new CachingDbAccessor(this);
+        }
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc;
+
+import com.github.nwillc.funjdbc.functions.Binder;
+import com.github.nwillc.funjdbc.functions.Extractor;
+import com.github.nwillc.funjdbc.functions.Flow;
+import com.github.nwillc.funjdbc.functions.SessionFunction;
+import com.github.nwillc.funjdbc.utils.RowBatch;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A DbAccessor decorator coalescing identical concurrent reads, so that when many threads issue the same
+ * {@link #dbQuery(SqlStatement, Extractor, QueryOptions)} or {@link #dbFind(SqlStatement, Extractor)} at once,
+ * for example as a cache entry expires, only one executes and the others share its result. Reads are identical
+ * when their statement's SQL and arguments, extractor, and query options are equal, so extractors should be stable
+ * instances. The executing read materializes its rows and every caller receives a fresh stream over the immutable
+ * list, a failure is rethrown to every caller. Reads are only shared while in flight, nothing is retained once
+ * they complete, and beyond a cap on distinct reads in flight further reads execute directly. Updates, executes,
+ * batches, inserts, sessions and transactions detach the reads in flight when they complete, so reads issued after
+ * a write made through this accessor never share a result read before it. All other operations, including chunked,
+ * partitioned and published queries, pass through to the decorated accessor.
+ *
+ * @since 1.1.0
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class CoalescingDbAccessor implements DbAccessor {
+    /**
+     * The default cap on distinct reads in flight.
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 1024;
+    private final DbAccessor delegate;
+    private final int maxInFlight;
+    private final ConcurrentMap<List<Object>, CompletableFuture<List<?>>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Create a coalescing decorator of an accessor, with the default cap.
+     *
+     * @param delegate the accessor to decorate
+     */
+    public CoalescingDbAccessor(DbAccessor delegate) {
+        this(delegate, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * Create a coalescing decorator of an accessor.
+     *
+     * @param delegate    the accessor to decorate
+     * @param maxInFlight the most distinct reads to coalesce at once
+     */
+    public CoalescingDbAccessor(DbAccessor delegate, int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("Max in flight must be positive.");
+        }
+        this.delegate = delegate;
+        this.maxInFlight = maxInFlight;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return delegate.getConnection();
+    }
+
+    @Override
+    public StatementCache getStatementCache() {
+        return delegate.getStatementCache();
+    }
+
+    @Override
+    public <T> Stream<T> dbQuery(final SqlStatement sqlStatement, final Extractor<T> extractor,
+                                 final QueryOptions options) throws SQLException {
+        final List<T> rows = coalesce(Arrays.asList("query", sqlStatement.key(), extractor, options), accessor -> {
+            try (Stream<T> stream = accessor.dbQuery(sqlStatement, extractor, options)) {
+                return Collections.unmodifiableList(stream.collect(Collectors.toList()));
+            }
+        });
+        return rows.stream();
+    }
+
+    @Override
+    public <T> Stream<RowBatch<T>> dbQueryChunked(final SqlStatement sqlStatement, final Extractor<T> extractor,
+                                                  final int chunkSize, final boolean reuse) throws SQLException {
+        return delegate.dbQueryChunked(sqlStatement, extractor, chunkSize, reuse);
+    }
+
+    @Override
+    public <T> Stream<T> dbQueryPartitioned(final SqlStatement template, final String keyColumn, final long min,
+                                            final long max, final int partitions, final Extractor<T> extractor) {
+        return delegate.dbQueryPartitioned(template, keyColumn, min, max, partitions, extractor);
+    }
+
+    @Override
+    public <T> Flow.Publisher<T> dbPublish(final SqlStatement sqlStatement, final Extractor<T> extractor,
+                                           final Executor executor) {
+        return delegate.dbPublish(sqlStatement, extractor, executor);
+    }
+
+    @Override
+    public <T> Optional<T> dbFind(final SqlStatement sqlStatement, final Extractor<T> extractor) throws SQLException {
+        final List<T> rows = coalesce(Arrays.asList("find", sqlStatement.key(), extractor),
+                accessor -> accessor.dbFind(sqlStatement, extractor)
+                        .map(Collections::singletonList).orElse(Collections.emptyList()));
+        return rows.isEmpty() ? Optional.empty() : Optional.of(rows.get(0));
+    }
+
+    @Override
+    public int dbUpdate(SqlStatement sqlStatement) throws SQLException {
+        try {
+            return delegate.dbUpdate(sqlStatement);
+        } finally {
+            inFlight.clear();
+        }
+    }
+
+    @Override
+    public boolean dbExecute(SqlStatement sqlStatement) throws SQLException {
+        try {
+            return delegate.dbExecute(sqlStatement);
+        } finally {
+            inFlight.clear();
+        }
+    }
+
+    @Override
+    public <T> long dbBatch(SqlStatement template, Stream<T> items, Binder<T> binder, int batchSize) throws SQLException {
+        try {
+            return delegate.dbBatch(template, items, binder, batchSize);
+        } finally {
+            inFlight.clear();
+        }
+    }
+
+    @Override
+    public <T> long dbInsertBulk(SqlStatement template, Stream<T> items, Binder<T> binder, int maxParameters)
+            throws SQLException {
+        try {
+            return delegate.dbInsertBulk(template, items, binder, maxParameters);
+        } finally {
+            inFlight.clear();
+        }
+    }
+
+    @Override
+    public <T, K> Stream<K> dbInsertBulkGetGeneratedKeys(SqlStatement template, Stream<T> items, Binder<T> binder,
+                                                         int maxParameters, Extractor<K> keyExtractor, String[] keys)
+            throws SQLException {
+        try {
+            return delegate.dbInsertBulkGetGeneratedKeys(template, items, binder, maxParameters, keyExtractor, keys);
+        } finally {
+            inFlight.clear();
+        }
+    }
+
+    @Override
+    public <T> Stream<T> dbInsertGetGeneratedKeys(SqlStatement sqlStatement, Extractor<T> keyExtractor, String[] keys)
+            throws SQLException {
+        try {
+            return delegate.dbInsertGetGeneratedKeys(sqlStatement, keyExtractor, keys);
+        } finally {
+            inFlight.clear();
+        }
+    }
+
+    @Override
+    public <R> R dbSession(SessionFunction<R> work) throws SQLException {
+        try {
+            return delegate.dbSession(work);
+        } finally {
+            inFlight.clear();
+        }
+    }
+
+    @Override
+    public <R> R dbTransaction(SessionFunction<R> work) throws SQLException {
+        try {
+            return delegate.dbTransaction(work);
+        } finally {
+            inFlight.clear();
+        }
+    }
+
+    @Override
+    public <R> R dbTransaction(int isolation, SessionFunction<R> work) throws SQLException {
+        try {
+            return delegate.dbTransaction(isolation, work);
+        } finally {
+            inFlight.clear();
+        }
+    }
+
+    /**
+     * The number of reads executed against the decorated accessor.
+     *
+     * @return execution count
+     */
+    public long getExecutions() {
+        return executions.get();
+    }
+
+    /**
+     * The number of reads that shared another's execution.
+     *
+     * @return coalesced count
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * The number of distinct reads currently in flight.
+     *
+     * @return in flight count
+     */
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T> coalesce(List<Object> key, SessionFunction<List<T>> read) throws SQLException {
+        CompletableFuture<List<?>> shared = inFlight.get(key);
+        if (shared == null) {
+            if (inFlight.size() >= maxInFlight) {
+                executions.incrementAndGet();
+                return read.apply(delegate);
+            }
+            final CompletableFuture<List<?>> mine = new CompletableFuture<>();
+            shared = inFlight.putIfAbsent(key, mine);
+            if (shared == null) {
+                return execute(key, mine, read);
+            }
+        }
+        coalesced.incrementAndGet();
+        try {
+            return (List<T>) shared.join();
+        } catch (CompletionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw new SQLException(cause.getMessage(), ((SQLException) cause).getSQLState(),
+                        ((SQLException) cause).getErrorCode(), cause);
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : e;
+        }
+    }
+
+    @SuppressWarnings("PMD.AvoidCatchingThrowable")
+    private <T> List<T> execute(List<Object> key, CompletableFuture<List<?>> mine, SessionFunction<List<T>> read)
+            throws SQLException {
+        executions.incrementAndGet();
+        try {
+            final List<T> rows = read.apply(delegate);
+            mine.complete(rows);
+            return rows;
+        } catch (final Throwable t) {
+            mine.completeExceptionally(t);
+            throw t;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+}
@@ -17,22 +17,43 @@
 
 package com.github.nwillc.funjdbc;
 
+import com.github.nwillc.funjdbc.functions.Binder;
 import com.github.nwillc.funjdbc.functions.ConnectionProvider;
 import com.github.nwillc.funjdbc.functions.Enricher;
 import com.github.nwillc.funjdbc.functions.Extractor;
+import com.github.nwillc.funjdbc.functions.Flow;
+import com.github.nwillc.funjdbc.functions.IntExtractor;
+import com.github.nwillc.funjdbc.functions.LongExtractor;
+import com.github.nwillc.funjdbc.functions.SessionFunction;
 import com.github.nwillc.funjdbc.functions.ThrowingFunction;
+import com.github.nwillc.funjdbc.utils.IntObjectMap;
+import com.github.nwillc.funjdbc.utils.LongObjectMap;
 import com.github.nwillc.funjdbc.utils.ResultSetStream;
+import com.github.nwillc.funjdbc.utils.RowBatch;
+import com.github.nwillc.funjdbc.utils.TaskExecutors;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static com.github.nwillc.funjdbc.utils.Closer.close;
+import static com.github.nwillc.funjdbc.utils.Throwables.propagate;
 
 
 /**
@@ -41,9 +62,70 @@ import static com.github.nwillc.funjdbc.utils.Closer.close;
 @SuppressWarnings("PMD.DataflowAnomalyAnalysis")
 public interface DbAccessor extends ConnectionProvider {
 
+    /**
+     * The cache used to reuse PreparedStatements across calls on the same connection. By default nothing is cached,
+     * implementations can opt in by returning a {@link StatementCache} with a non zero capacity.
+     *
+     * @return the statement cache
+     * @since 1.1.0
+     */
+    default StatementCache getStatementCache() {
+        return StatementCache.NONE;
+    }
+
+    /**
+     * Perform work within a session, a single connection shared by all the calls made through the session's
+     * accessor, along with a statement cache for the life of the session. The connection is closed when the work
+     * completes. The accessor should not be used once the work completes.
+     *
+     * @param <R>  the type of the result
+     * @param work the work to perform
+     * @return the result of the work
+     * @throws SQLException if the connection can not be obtained or the work fails
+     * @since 1.1.0
+     */
+    default <R> R dbSession(final SessionFunction<R> work) throws SQLException {
+        try (Connection connection = getConnection(); Session session = new Session(connection)) {
+            return work.apply(session);
+        }
+    }
+
+    /**
+     * Perform work within a transaction, on a session as {@link #dbSession(SessionFunction)}. If the work completes
+     * the transaction is committed, if it throws the transaction is rolled back. A transaction started
+     * from within a transaction joins it.
+     *
+     * @param <R>  the type of the result
+     * @param work the work to perform
+     * @return the result of the work
+     * @throws SQLException if the connection can not be obtained, the work fails, or the commit fails
+     * @since 1.1.0
+     */
+    default <R> R dbTransaction(final SessionFunction<R> work) throws SQLException {
+        return dbSession(session -> session.dbTransaction(work));
+    }
+
+    /**
+     * Perform work within a transaction at a given isolation level, as {@link #dbTransaction(SessionFunction)}. The
+     * connection's isolation level is restored afterwards. A transaction joining another keeps the other's level.
+     *
+     * @param <R>       the type of the result
+     * @param isolation the isolation level, one of the Connection TRANSACTION_ constants
+     * @param work      the work to perform
+     * @return the result of the work
+     * @throws SQLException if the connection can not be obtained, the work fails, or the commit fails
+     * @since 1.1.0
+     */
+    default <R> R dbTransaction(final int isolation, final SessionFunction<R> work) throws SQLException {
+        return dbSession(session -> session.dbTransaction(isolation, work));
+    }
+
     /**
      * Extract results from a SQL query designed to return multiple results. The SQL, and it's optional args
-     * are formatted with String.format(String, Object ...) method. Note, Streams are Closeable, and the
+     * are formatted with String.format(String, Object ...) method, or for a parameterized statement, the args
+     * are bound as parameters. A statement whose IN list is split across several statements is executed
+     * a statement at a time, as the stream is consumed, with the results merged into the one stream.
+     * Note, Streams are Closeable, and the
      * resultant Stream should be closed when completed to insure database resources involved in the stream are freed.
      *
      * @param <T>          Type extracted and returned in the stream
@@ -53,9 +135,134 @@ public interface DbAccessor extends ConnectionProvider {
      * @throws SQLException if the query or an extraction fails
      */
     default <T> Stream<T> dbQuery(final SqlStatement sqlStatement, final Extractor<T> extractor) throws SQLException {
+        return dbQuery(sqlStatement, extractor, QueryOptions.DEFAULT);
+    }
+
+    /**
+     * Extract results from a SQL query designed to return multiple results, as
+     * {@link #dbQuery(SqlStatement, Extractor)}, with the statement and connection tuned by query options. For
+     * example, {@link QueryOptions#streaming(int)} allows large results to be streamed through a server side cursor
+     * rather than buffered by the driver.
+     *
+     * @param <T>          Type extracted and returned in the stream
+     * @param sqlStatement The SQL statement
+     * @param extractor    The extractor to process the ResultSet with
+     * @param options      The query options
+     * @return a stream of the extracted elements
+     * @throws SQLException if the query or an extraction fails
+     * @since 1.1.0
+     */
+    default <T> Stream<T> dbQuery(final SqlStatement sqlStatement, final Extractor<T> extractor,
+                                  final QueryOptions options) throws SQLException {
+        if (sqlStatement != null && sqlStatement.isSplit()) {
+            return sqlStatement.expand().stream().flatMap(s -> {
+                try {
+                    return dbQuery(s, extractor, options);
+                } catch (SQLException e) {
+                    throw propagate(e);
+                }
+            });
+        }
+        final StatementCache cache = getStatementCache();
         return stream(extractor,
-                c -> c.prepareStatement(sqlStatement.toString()),
-                PreparedStatement::executeQuery);
+                c -> cache.prepare(c, sqlStatement, options),
+                PreparedStatement::executeQuery,
+                options);
+    }
+
+    /**
+     * Extract results from a SQL query in batches, as {@link #dbQuery(SqlStatement, Extractor)}, but streaming
+     * lists of up to chunkSize elements, so that consumers working in batches avoid per element stream overhead.
+     *
+     * @param <T>          Type extracted
+     * @param sqlStatement The SQL statement
+     * @param extractor    The extractor to process the ResultSet with
+     * @param chunkSize    The maximum elements per batch
+     * @return a stream of batches of extracted elements
+     * @throws SQLException if the query or an extraction fails
+     * @since 1.1.0
+     */
+    default <T> Stream<RowBatch<T>> dbQueryChunked(final SqlStatement sqlStatement, final Extractor<T> extractor,
+                                                   final int chunkSize) throws SQLException {
+        return dbQueryChunked(sqlStatement, extractor, chunkSize, false);
+    }
+
+    /**
+     * Extract results from a SQL query in batches, as {@link #dbQueryChunked(SqlStatement, Extractor, int)},
+     * optionally refilling a single batch for each chunk, so a chunk costs no allocation. A reused batch is only valid
+     * until the next is requested, so it must be copied to be retained, and the stream must not be parallel.
+     *
+     * @param <T>          Type extracted
+     * @param sqlStatement The SQL statement
+     * @param extractor    The extractor to process the ResultSet with
+     * @param chunkSize    The maximum elements per batch
+     * @param reuse        true to refill one batch rather than allocate a batch per chunk
+     * @return a stream of batches of extracted elements
+     * @throws SQLException if the query or an extraction fails
+     * @since 1.1.0
+     */
+    default <T> Stream<RowBatch<T>> dbQueryChunked(final SqlStatement sqlStatement, final Extractor<T> extractor,
+                                                   final int chunkSize, final boolean reuse) throws SQLException {
+        return RowBatch.chunks(dbQuery(sqlStatement, extractor), chunkSize, reuse);
+    }
+
+    /**
+     * Extract results from a SQL query split into key range partitions, so that the partitions can be queried in
+     * parallel. The query is wrapped as <code>SELECT * FROM (template) p WHERE p.keyColumn BETWEEN ? AND ?</code>
+     * once for each of the ranges evenly dividing min to max inclusive, so rows with keys outside that range, or
+     * null keys, are excluded. The key column is added to the SQL as is, and must not come from untrusted input.
+     * The resultant stream's spliterator splits along partition boundaries and runs each partition's query, on its
+     * own connection, only when traversal reaches it, so a parallel stream queries its partitions concurrently
+     * while a sequential one queries them in turn. The stream should be closed when completed, to free the
+     * resources of any partially traversed partitions.
+     *
+     * @param <T>        Type extracted and returned in the stream
+     * @param template   The SQL statement to partition
+     * @param keyColumn  The numeric column to partition on
+     * @param min        The lowest key
+     * @param max        The highest key
+     * @param partitions The number of partitions
+     * @param extractor  The extractor to process the ResultSets with
+     * @return a stream of the extracted elements, in partition order
+     * @since 1.1.0
+     */
+    default <T> Stream<T> dbQueryPartitioned(final SqlStatement template, final String keyColumn, final long min,
+                                             final long max, final int partitions, final Extractor<T> extractor) {
+        final PartitionSpliterator<T> spliterator =
+                PartitionSpliterator.of(this, template, keyColumn, min, max, partitions, extractor);
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+    }
+
+    /**
+     * Publish the results of a SQL query, as {@link #dbQuery(SqlStatement, Extractor)}, to demand driven
+     * Subscribers. Each subscription runs the query when first requested, extracting rows only as they're
+     * requested, and releases the statement and connection on completion, failure or cancellation. Signals
+     * are delivered from the per task executor, see {@link TaskExecutors#perTask()}.
+     *
+     * @param <T>          Type extracted and published
+     * @param sqlStatement The SQL statement
+     * @param extractor    The extractor to process the ResultSet with
+     * @return a publisher of the extracted elements
+     * @since 1.1.0
+     */
+    default <T> Flow.Publisher<T> dbPublish(final SqlStatement sqlStatement, final Extractor<T> extractor) {
+        return dbPublish(sqlStatement, extractor, TaskExecutors.perTask());
+    }
+
+    /**
+     * Publish the results of a SQL query, as {@link #dbPublish(SqlStatement, Extractor)}, delivering signals
+     * from a given executor.
+     *
+     * @param <T>          Type extracted and published
+     * @param sqlStatement The SQL statement
+     * @param extractor    The extractor to process the ResultSet with
+     * @param executor     The executor to query and deliver signals from
+     * @return a publisher of the extracted elements
+     * @since 1.1.0
+     */
+    default <T> Flow.Publisher<T> dbPublish(final SqlStatement sqlStatement, final Extractor<T> extractor,
+                                            final Executor executor) {
+        return new QueryPublisher<>(this, sqlStatement, extractor, executor);
     }
 
     /**
@@ -72,24 +279,175 @@ public interface DbAccessor extends ConnectionProvider {
      */
     default <K, V> void dbEnrich(final SqlStatement sqlStatement, final Extractor<K> keyExtractor, Map<K, V> map,
                                  final Enricher<V> enricher) throws SQLException {
-        try (Connection connection = getConnection();
-             Statement statement = connection.createStatement();
-             ResultSet resultSet = statement.executeQuery(sqlStatement.toString())) {
-            while (resultSet.next()) {
-                K key = keyExtractor.extract(resultSet);
-                if (key != null) {
-                    V value = map.get(key);
+        if (sqlStatement.isSplit()) {
+            for (SqlStatement s : sqlStatement.expand()) {
+                dbEnrich(s, keyExtractor, map, enricher);
+            }
+            return;
+        }
+        final StatementCache cache = getStatementCache();
+        try (Connection connection = getConnection()) {
+            final PreparedStatement statement = cache.prepare(connection, sqlStatement);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    K key = keyExtractor.extract(resultSet);
+                    if (key != null) {
+                        V value = map.get(key);
+                        if (value != null) {
+                            enricher.accept(value, resultSet);
+                        }
+                    }
+                }
+            } finally {
+                cache.release(statement);
+            }
+        }
+    }
+
+    /**
+     * Given a map of entities keyed by primitive longs, and a query that extracts details about them, then execute
+     * that query and enrich the entities with the results. Keys are extracted and looked up without boxing, rows with
+     * a NULL key are skipped.
+     *
+     * @param <V>          the entity type
+     * @param sqlStatement The SQL statement
+     * @param keyExtractor an extractor to get the entity key from the detail records
+     * @param map          A map of entities the enrich
+     * @param enricher     a function to enrich an entity from the detail record
+     * @throws SQLException may result from the query or enrichments
+     * @since 1.1.0
+     */
+    default <V> void dbEnrich(final SqlStatement sqlStatement, final LongExtractor keyExtractor, LongObjectMap<V> map,
+                              final Enricher<V> enricher) throws SQLException {
+        if (sqlStatement.isSplit()) {
+            for (SqlStatement s : sqlStatement.expand()) {
+                dbEnrich(s, keyExtractor, map, enricher);
+            }
+            return;
+        }
+        final StatementCache cache = getStatementCache();
+        try (Connection connection = getConnection()) {
+            final PreparedStatement statement = cache.prepare(connection, sqlStatement);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    final long key = keyExtractor.extractLong(resultSet);
+                    final V value = resultSet.wasNull() ? null : map.get(key);
                     if (value != null) {
                         enricher.accept(value, resultSet);
                     }
                 }
+            } finally {
+                cache.release(statement);
             }
         }
     }
 
+    /**
+     * Given a map of entities keyed by primitive ints, and a query that extracts details about them, then execute
+     * that query and enrich the entities with the results. Keys are extracted and looked up without boxing, rows with
+     * a NULL key are skipped.
+     *
+     * @param <V>          the entity type
+     * @param sqlStatement The SQL statement
+     * @param keyExtractor an extractor to get the entity key from the detail records
+     * @param map          A map of entities the enrich
+     * @param enricher     a function to enrich an entity from the detail record
+     * @throws SQLException may result from the query or enrichments
+     * @since 1.1.0
+     */
+    default <V> void dbEnrich(final SqlStatement sqlStatement, final IntExtractor keyExtractor, IntObjectMap<V> map,
+                              final Enricher<V> enricher) throws SQLException {
+        if (sqlStatement.isSplit()) {
+            for (SqlStatement s : sqlStatement.expand()) {
+                dbEnrich(s, keyExtractor, map, enricher);
+            }
+            return;
+        }
+        final StatementCache cache = getStatementCache();
+        try (Connection connection = getConnection()) {
+            final PreparedStatement statement = cache.prepare(connection, sqlStatement);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    final int key = keyExtractor.extractInt(resultSet);
+                    final V value = resultSet.wasNull() ? null : map.get(key);
+                    if (value != null) {
+                        enricher.accept(value, resultSet);
+                    }
+                }
+            } finally {
+                cache.release(statement);
+            }
+        }
+    }
+
+    /**
+     * Enrich a map of entities, querying only for the details of the map's keys, rather than scanning
+     * all the details. The keyed statement function is given the map's keys and should return a parameterized
+     * statement that queries by them as an IN list, for example
+     * <code>keys -&gt; prepared("SELECT * FROM DETAIL WHERE ID IN (?)", in(keys))</code>. When the
+     * IN list is split across several statements they are run concurrently, each on its own connection, up to
+     * the options' parallelism, so the enricher may be called concurrently for different entities. When the map is
+     * larger than the options' threshold, and a scan statement is provided, the map is instead enriched by a
+     * scan, as {@link #dbEnrich(SqlStatement, Extractor, Map, Enricher)}.
+     *
+     * @param <K>            the key type
+     * @param <V>            the entity type
+     * @param scanStatement  the SQL statement to scan all details, or null to always use keyed lookups
+     * @param keyedStatement a function creating the SQL statement to query the details of a collection of keys
+     * @param keyExtractor   an Extractor to get the entity key from the detail records
+     * @param map            A map of entities the enrich
+     * @param enricher       a function to enrich an entity from the detail record
+     * @param options        the enrichment options
+     * @throws SQLException may result from the queries or enrichments
+     * @since 1.1.0
+     */
+    default <K, V> void dbEnrich(final SqlStatement scanStatement, final Function<Collection<K>, SqlStatement> keyedStatement,
+                                 final Extractor<K> keyExtractor, Map<K, V> map, final Enricher<V> enricher,
+                                 final EnrichOptions options) throws SQLException {
+        if (map.isEmpty()) {
+            return;
+        }
+        if (scanStatement != null && map.size() > options.getThreshold()) {
+            dbEnrich(scanStatement, keyExtractor, map, enricher);
+            return;
+        }
+        final List<SqlStatement> statements = keyedStatement.apply(map.keySet()).expand();
+        final Queue<SqlStatement> pending = new ConcurrentLinkedQueue<>(statements);
+        final Runnable worker = () -> {
+            SqlStatement statement;
+            while ((statement = pending.poll()) != null) {
+                try {
+                    dbEnrich(statement, keyExtractor, map, enricher);
+                } catch (SQLException e) {
+                    pending.clear();
+                    throw propagate(e);
+                }
+            }
+        };
+        final int workers = Math.min(options.getParallelism(), statements.size());
+        final List<CompletableFuture<Void>> futures = new ArrayList<>(workers);
+        for (int i = 1; i < workers; i++) {
+            futures.add(CompletableFuture.runAsync(worker, options.getExecutor()));
+        }
+        try {
+            worker.run();
+            futures.forEach(CompletableFuture::join);
+        } catch (CompletionException | UncheckedSQLException e) {
+            final Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+            if (cause instanceof UncheckedSQLException && cause.getCause() instanceof SQLException) {
+                throw (SQLException) cause.getCause();
+            }
+            throw e;
+        } finally {
+            futures.forEach(f -> f.cancel(false));
+        }
+    }
+
     /**
      * Extract the result from a SQL query which returns at most one result. The SQL, and it's optional args
-     * are formatted with String.format(String, Object ...) method.
+     * are formatted with String.format(String, Object ...) method, or for a parameterized statement, the args
+     * are bound as parameters. The statement is limited to fetching and returning the two rows needed to
+     * detect multiple results.
      *
      * @param <T>          Type extracted and optionally returned
      * @param sqlStatement the SQL statement
@@ -98,39 +456,212 @@ public interface DbAccessor extends ConnectionProvider {
      * @throws SQLException if the query or extraction fails, or if multiple rows returned
      */
     default <T> Optional<T> dbFind(final SqlStatement sqlStatement, final Extractor<T> extractor) throws SQLException {
-        try (Connection connection = getConnection();
-             Statement statement = connection.createStatement();
-             ResultSet resultSet = statement.executeQuery(sqlStatement.toString())) {
-
-            if (!resultSet.next()) {
-                return Optional.empty();
+        if (sqlStatement.isSplit()) {
+            Optional<T> found = Optional.empty();
+            for (SqlStatement s : sqlStatement.expand()) {
+                final Optional<T> result = dbFind(s, extractor);
+                if (result.isPresent() && found.isPresent()) {
+                    throw new SQLException("Query to find single row returned multiple.");
+                }
+                found = found.isPresent() ? found : result;
             }
+            return found;
+        }
+        final StatementCache cache = getStatementCache();
+        try (Connection connection = getConnection()) {
+            final PreparedStatement statement = cache.prepare(connection, sqlStatement, QueryOptions.SINGLE_ROW);
+            try (ResultSet resultSet = statement.executeQuery()) {
+
+                if (!resultSet.next()) {
+                    return Optional.empty();
+                }
+
+                final T result = extractor.extract(resultSet);
 
-            final T result = extractor.extract(resultSet);
+                if (resultSet.next()) {
+                    throw new SQLException("Query to find single row returned multiple.");
+                }
 
-            if (resultSet.next()) {
-                throw new SQLException("Query to find single row returned multiple.");
+                return Optional.of(result);
+            } finally {
+                cache.release(statement);
             }
+        }
+    }
 
-            return Optional.of(result);
+    /**
+     * Test if a SQL query returns any rows, fetching at most one.
+     *
+     * @param sqlStatement the SQL statement
+     * @return true if the query returns a row
+     * @throws SQLException if the query fails
+     * @since 1.1.0
+     */
+    default boolean dbExists(final SqlStatement sqlStatement) throws SQLException {
+        if (sqlStatement.isSplit()) {
+            for (SqlStatement s : sqlStatement.expand()) {
+                if (dbExists(s)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        final StatementCache cache = getStatementCache();
+        try (Connection connection = getConnection()) {
+            final PreparedStatement statement = cache.prepare(connection, sqlStatement, QueryOptions.FIRST_ROW);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next();
+            } finally {
+                cache.release(statement);
+            }
         }
     }
 
+    /**
+     * Count the rows a SQL query returns, counting in the database by wrapping the query as
+     * <code>SELECT COUNT(*) FROM (query) c</code>.
+     *
+     * @param sqlStatement the SQL statement
+     * @return the count of rows
+     * @throws SQLException if the query fails
+     * @since 1.1.0
+     */
+    default long dbCount(final SqlStatement sqlStatement) throws SQLException {
+        if (sqlStatement.isSplit()) {
+            long count = 0;
+            for (SqlStatement s : sqlStatement.expand()) {
+                count += dbCount(s);
+            }
+            return count;
+        }
+        return dbFind(sqlStatement.wrap("SELECT COUNT(*) FROM (", ") c"), rs -> rs.getLong(1)).orElse(0L);
+    }
+
     /**
      * Execute a SQL update or delete. The SQL, and it's optional args
-     * are formatted with String.format(String, Object ...) method.
+     * are formatted with String.format(String, Object ...) method, or for a parameterized statement, the args
+     * are bound as parameters.
      *
      * @param sqlStatement The SQL statement
      * @return the count of rows updated.
      * @throws SQLException if the update fails
      */
     default int dbUpdate(SqlStatement sqlStatement) throws SQLException {
-        try (Connection connection = getConnection();
-             Statement statement = connection.createStatement()) {
-            return statement.executeUpdate(sqlStatement.toString());
+        if (sqlStatement.isSplit()) {
+            int count = 0;
+            for (SqlStatement s : sqlStatement.expand()) {
+                count += dbUpdate(s);
+            }
+            return count;
+        }
+        final StatementCache cache = getStatementCache();
+        try (Connection connection = getConnection()) {
+            final PreparedStatement statement = cache.prepare(connection, sqlStatement);
+            try {
+                return statement.executeUpdate();
+            } finally {
+                cache.release(statement);
+            }
         }
     }
 
+    /**
+     * Execute a parameterized SQL insert, update or delete once per item of a stream, as JDBC batches of a given
+     * size on a single statement and connection. The items are consumed lazily, so memory use doesn't grow with
+     * the number of items. The stream of items is not closed.
+     *
+     * @param <T>       the item type
+     * @param template  the SQL statement, with '?' placeholders for the binder to bind
+     * @param items     the items
+     * @param binder    binds each item to the statement's parameters
+     * @param batchSize the number of items to send to the database per batch
+     * @return the total count of rows updated, drivers that don't report a batched statement's count contribute nothing
+     * @throws SQLException if a bind or batch fails
+     * @since 1.1.0
+     */
+    default <T> long dbBatch(SqlStatement template, Stream<T> items, Binder<T> binder, int batchSize) throws SQLException {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive.");
+        }
+        final StatementCache cache = getStatementCache();
+        try (Connection connection = getConnection()) {
+            final PreparedStatement statement = cache.prepare(connection, template.getSql());
+            try {
+                long count = 0;
+                int pending = 0;
+                final Iterator<T> iterator = items.iterator();
+                while (iterator.hasNext()) {
+                    binder.bind(statement, iterator.next());
+                    statement.addBatch();
+                    if (++pending == batchSize) {
+                        for (int updated : statement.executeBatch()) {
+                            count += Math.max(updated, 0);
+                        }
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    for (int updated : statement.executeBatch()) {
+                        count += Math.max(updated, 0);
+                    }
+                }
+                return count;
+            } finally {
+                cache.release(statement);
+            }
+        }
+    }
+
+    /**
+     * Insert a stream of items, rewriting a single row <code>INSERT ... VALUES (?, ?)</code> template into multi-row
+     * <code>VALUES (?, ?), (?, ?), ...</code> statements, each with as many rows as keep its parameter count within
+     * a limit. For many drivers this is considerably faster than batching single row inserts. The items are
+     * consumed lazily, on a single connection, and the stream of items is not closed.
+     *
+     * @param <T>           the item type
+     * @param template      the single row insert statement, all of whose '?' placeholders must be in the VALUES row
+     * @param items         the items
+     * @param binder        binds an item to a row's parameters
+     * @param maxParameters the maximum parameters per statement
+     * @return the count of rows inserted
+     * @throws SQLException if an insert fails
+     * @since 1.1.0
+     */
+    default <T> long dbInsertBulk(SqlStatement template, Stream<T> items, Binder<T> binder, int maxParameters) throws SQLException {
+        final MultiRowInsert insert = new MultiRowInsert(template.getSql());
+        try (Connection connection = getConnection()) {
+            return insert.insert(connection, getStatementCache(), items.iterator(), binder, maxParameters,
+                    null, null, null);
+        }
+    }
+
+    /**
+     * Insert a stream of items with multi-row inserts, as {@link #dbInsertBulk(SqlStatement, Stream, Binder, int)},
+     * into a table with an auto incremented key, returning a stream of the keys.
+     *
+     * @param <T>           the item type
+     * @param <K>           the key type
+     * @param template      the single row insert statement, all of whose '?' placeholders must be in the VALUES row
+     * @param items         the items
+     * @param binder        binds an item to a row's parameters
+     * @param maxParameters the maximum parameters per statement
+     * @param keyExtractor  the key extractor
+     * @param keys          the key columns
+     * @return the stream of keys generated
+     * @throws SQLException if an insert fails
+     * @since 1.1.0
+     */
+    default <T, K> Stream<K> dbInsertBulkGetGeneratedKeys(SqlStatement template, Stream<T> items, Binder<T> binder,
+                                                          int maxParameters, Extractor<K> keyExtractor, String[] keys) throws SQLException {
+        final MultiRowInsert insert = new MultiRowInsert(template.getSql());
+        final List<K> generated = new ArrayList<>();
+        try (Connection connection = getConnection()) {
+            insert.insert(connection, getStatementCache(), items.iterator(), binder, maxParameters,
+                    keyExtractor, keys, generated);
+        }
+        return generated.stream();
+    }
+
     /**
      * Execute an insert into a table with an auto incremented key, returning a stream of the keys.
      *
@@ -144,7 +675,7 @@ public interface DbAccessor extends ConnectionProvider {
      */
     default <T> Stream<T> dbInsertGetGeneratedKeys(SqlStatement sqlStatement, Extractor<T> keyExtractor, String[] keys) throws SQLException {
         return stream(keyExtractor,
-                c -> c.prepareStatement(sqlStatement.toString(), keys),
+                c -> sqlStatement.prepare(c, keys),
                 s -> {
                     s.execute();
                     return s.getGeneratedKeys();
@@ -162,14 +693,27 @@ public interface DbAccessor extends ConnectionProvider {
      * @since 0.9.3
      */
     default boolean dbExecute(SqlStatement sqlStatement) throws SQLException {
-        try (Connection connection = getConnection();
-             Statement statement = connection.createStatement()) {
-            return statement.execute(sqlStatement.toString());
+        if (sqlStatement.isSplit()) {
+            boolean resultSet = false;
+            for (SqlStatement s : sqlStatement.expand()) {
+                resultSet |= dbExecute(s);
+            }
+            return resultSet;
+        }
+        final StatementCache cache = getStatementCache();
+        try (Connection connection = getConnection()) {
+            final PreparedStatement statement = cache.prepare(connection, sqlStatement);
+            try {
+                return statement.execute();
+            } finally {
+                cache.release(statement);
+            }
         }
     }
 
     /**
-     * Return the results of a sql execution as a stream of an extracted type.
+     * Return the results of a sql execution as a stream of an extracted type. When the stream is closed, or should
+     * the execution fail, the statement is released to the statement cache, which closes it unless it's cached.
      *
      * @param extractor Function to extract data from the ResultSet
      * @param execution Given a Statement, execute it returning a ResultSet
@@ -180,9 +724,32 @@ public interface DbAccessor extends ConnectionProvider {
      * @throws SQLException Should the execution have issues.
      * @since 0.13.1
      */
-    @SuppressWarnings("PMD.CloseResource")
     default <T, S extends Statement> Stream<T> stream(final Extractor<T> extractor, ThrowingFunction<Connection, S> createStetement, ThrowingFunction<S, ResultSet> execution) throws SQLException {
+        return stream(extractor, createStetement, execution, QueryOptions.DEFAULT);
+    }
+
+    /**
+     * Return the results of a sql execution as a stream of an extracted type, as
+     * {@link #stream(Extractor, ThrowingFunction, ThrowingFunction)}, applying the fetch size and row limit of the
+     * query options to the statement, and setting the connection's auto-commit mode for the life of the stream if
+     * the options require it.
+     *
+     * @param extractor       Function to extract data from the ResultSet
+     * @param createStetement The create statement
+     * @param execution       Given a Statement, execute it returning a ResultSet
+     * @param options         The query options
+     * @param <T>             Type of the elements in the resultant Stream
+     * @param <S>             Type of the Statement
+     * @return A Stream of type T
+     * @throws SQLException Should the execution have issues.
+     * @since 1.1.0
+     */
+    @SuppressWarnings("PMD.CloseResource")
+    default <T, S extends Statement> Stream<T> stream(final Extractor<T> extractor, ThrowingFunction<Connection, S> createStetement,
+                                                      ThrowingFunction<S, ResultSet> execution, QueryOptions options) throws SQLException {
+        final StatementCache cache = getStatementCache();
         Connection connection = null;
+        Boolean autoCommit = null;
         S statement = null;
         ResultSet resultSet = null;
 
@@ -190,16 +757,21 @@ public interface DbAccessor extends ConnectionProvider {
         try {
             final Connection c = getConnection();
             connection = c;
+            final Boolean restore = options.configure(c);
+            autoCommit = restore;
             final S s = createStetement.apply(c);
             statement = s;
+            options.apply(s);
             resultSet = execution.apply(s);
-            return ResultSetStream.stream(resultSet, extractor)
+            return ResultSetStream.stream(resultSet, extractor, options.getPrefetch())
                     .onClose(() -> {
-                        close(s);
+                        cache.release(s);
+                        QueryOptions.restore(c, restore);
                         close(c);
                     });
         } catch (Exception e) {
-            close(statement);
+            cache.release(statement);
+            QueryOptions.restore(connection, autoCommit);
             close(connection);
             close(resultSet);
             throw new SQLException("Query failed", e);
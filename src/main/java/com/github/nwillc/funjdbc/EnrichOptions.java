@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc;
+
+import com.github.nwillc.funjdbc.utils.TaskExecutors;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+
+/**
+ * Options for a key-targeted enrichment, see
+ * {@link DbAccessor#dbEnrich(SqlStatement, java.util.function.Function, com.github.nwillc.funjdbc.functions.Extractor,
+ * java.util.Map, com.github.nwillc.funjdbc.functions.Enricher, EnrichOptions)}. Instances are immutable, each
+ * with method returning a modified copy.
+ *
+ * @since 1.1.0
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class EnrichOptions {
+    /**
+     * The default options, keyed lookups for up to 10,000 entries, using up to four connections at once on
+     * the shared executor.
+     */
+    public static final EnrichOptions DEFAULT = new EnrichOptions(10_000, 4, TaskExecutors.shared());
+    private final int threshold;
+    private final int parallelism;
+    private final Executor executor;
+
+    private EnrichOptions(int threshold, int parallelism, Executor executor) {
+        this.threshold = threshold;
+        this.parallelism = parallelism;
+        this.executor = executor;
+    }
+
+    /**
+     * The largest map size that is enriched with keyed lookups, larger maps are enriched by a full scan.
+     *
+     * @return the threshold
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * The most keyed lookup statements run at once, each on its own connection.
+     *
+     * @return the parallelism
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * The executor concurrent keyed lookups are run on.
+     *
+     * @return the executor
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Copy with a given threshold.
+     *
+     * @param threshold the largest map size to use keyed lookups for
+     * @return the modified options
+     */
+    public EnrichOptions withThreshold(int threshold) {
+        return new EnrichOptions(threshold, parallelism, executor);
+    }
+
+    /**
+     * Copy with a given parallelism.
+     *
+     * @param parallelism the most keyed lookups to run at once
+     * @return the modified options
+     */
+    public EnrichOptions withParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive.");
+        }
+        return new EnrichOptions(threshold, parallelism, executor);
+    }
+
+    /**
+     * Copy with a given executor.
+     *
+     * @param executor the executor to run keyed lookups on
+     * @return the modified options
+     */
+    public EnrichOptions withExecutor(Executor executor) {
+        Objects.requireNonNull(executor, "A non null executor is required");
+        return new EnrichOptions(threshold, parallelism, executor);
+    }
+}
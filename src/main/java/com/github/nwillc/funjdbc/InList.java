@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A collection argument to a parameterized {@link SqlStatement}, expanded to fill an IN list. The single '?'
+ * placeholder the InList is bound to is expanded into as many placeholders as a power of two bucket size, padded
+ * by repeating the last value, so that the number of distinct SQL texts, and so statements the database and
+ * statement caches see, stays small no matter the collection sizes. Collections larger than the maximum bucket
+ * size are split across several executions. An empty InList binds a single NULL, matching nothing.
+ * <p>
+ * InLists are only meant for <code>IN</code>. With <code>NOT IN</code> an empty list still binds NULL, and
+ * <code>x NOT IN (NULL)</code> matches no rows rather than all of them, while a list split across executions
+ * returns rows outside each chunk rather than outside the whole list. Test for emptiness before using one with
+ * <code>NOT IN</code>, and keep it within the maximum bucket size.
+ *
+ * @see SqlStatement#in(Collection)
+ * @since 1.1.0
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class InList {
+    /**
+     * The default maximum number of placeholders an InList expands to in one statement.
+     */
+    public static final int DEFAULT_MAX_BUCKET = 512;
+    private final Object[] values;
+    private final int maxBucket;
+
+    InList(Collection<?> values, int maxBucket) {
+        if (maxBucket < 1) {
+            throw new IllegalArgumentException("Maximum bucket size must be positive.");
+        }
+        this.values = values.toArray();
+        this.maxBucket = maxBucket;
+    }
+
+    /**
+     * The number of values in the list.
+     *
+     * @return the size
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * The maximum placeholders this list expands to in one statement.
+     *
+     * @return the maximum bucket size
+     */
+    public int getMaxBucket() {
+        return maxBucket;
+    }
+
+    /**
+     * The values of the list.
+     *
+     * @return an unmodifiable view of the values
+     */
+    List<Object> values() {
+        return Collections.unmodifiableList(Arrays.asList(values));
+    }
+
+    /**
+     * The number of statements needed to cover all the values.
+     *
+     * @return the chunk count
+     */
+    int chunks() {
+        return values.length <= maxBucket ? 1 : (values.length + maxBucket - 1) / maxBucket;
+    }
+
+    /**
+     * The placeholder count for a number of values, the next power of two, but no more than the maximum bucket size.
+     *
+     * @param count the number of values
+     * @return the bucket size
+     */
+    int bucket(int count) {
+        if (count <= 1) {
+            return 1;
+        }
+        return Math.min(maxBucket, Integer.highestOneBit(count - 1) << 1);
+    }
+
+    /**
+     * Append the placeholders for one chunk of the values to SQL, and the padded values to the arguments.
+     *
+     * @param chunk the chunk
+     * @param sql   the SQL being built
+     * @param args  the arguments being built
+     */
+    void expand(int chunk, StringBuilder sql, Collection<Object> args) {
+        final int from = chunk * maxBucket;
+        final int to = Math.min(values.length, from + maxBucket);
+        final int bucket = bucket(to - from);
+        for (int i = 0; i < bucket; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append('?');
+            args.add(from + i < to ? values[from + i] : (to > from ? values[to - 1] : null));
+        }
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc;
+
+import com.github.nwillc.funjdbc.functions.Extractor;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * A near cache of rows found by key with {@link DbAccessor#dbFind(SqlStatement, Extractor)}, typically primary key
+ * lookups of hot rows, saving a connection checkout and round trip per hit. Entries are held in segments, each a
+ * least recently used map behind its own lock, so that concurrent lookups of different keys rarely contend. Updates
+ * made with {@link #dbUpdate(Object, SqlStatement)} evict the entry for their key once done, other writes require
+ * {@link #invalidate(Object)}.
+ * <p>
+ * Keys with no row are only cached when given a time to live, see {@link Builder#withMissTtl(long)}. As a cached
+ * miss hides a row inserted later until it expires, code inserting a key's row should call
+ * {@link #invalidate(Object)} for it.
+ *
+ * @param <K> the type of the key
+ * @param <T> the type of the row
+ * @since 1.1.0
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class KeyedCache<K, T> {
+    private final DbAccessor accessor;
+    private final Function<K, SqlStatement> finder;
+    private final Extractor<T> extractor;
+    private final long missTtl;
+    private final Segment<K, T>[] segments;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private KeyedCache(Builder<K, T> builder) {
+        accessor = builder.accessor;
+        finder = builder.finder;
+        extractor = builder.extractor;
+        missTtl = builder.missTtl;
+        segments = new Segment[Math.min(builder.segments, Integer.highestOneBit(builder.maxSize))];
+        final int capacity = builder.maxSize / segments.length;
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment<>(capacity, evictions);
+        }
+    }
+
+    /**
+     * Start building a keyed cache.
+     *
+     * @param accessor  the accessor to find rows with
+     * @param finder    a function from key to the statement finding its row
+     * @param extractor the extractor of the row
+     * @param <K>       the type of the key
+     * @param <T>       the type of the row
+     * @return a builder
+     */
+    public static <K, T> Builder<K, T> builder(DbAccessor accessor, Function<K, SqlStatement> finder,
+                                               Extractor<T> extractor) {
+        return new Builder<>(accessor, finder, extractor);
+    }
+
+    /**
+     * Find the row for a key, from the cache if present, otherwise with the accessor.
+     *
+     * @param key the key
+     * @return the row if found
+     * @throws SQLException if the underlying find fails
+     */
+    public Optional<T> find(final K key) throws SQLException {
+        final Segment<K, T> segment = segment(key);
+        final long version;
+        synchronized (segment) {
+            final Cached<T> cached = segment.get(key);
+            if (cached != null) {
+                if (cached.row.isPresent() || cached.expires > System.currentTimeMillis()) {
+                    hits.incrementAndGet();
+                    return cached.row;
+                }
+                segment.remove(key);
+            }
+            version = segment.version;
+        }
+        misses.incrementAndGet();
+        final Optional<T> found = accessor.dbFind(finder.apply(key), extractor);
+        if (found.isPresent() || missTtl > 0) {
+            final Cached<T> entry = new Cached<>(found, found.isPresent() ? Long.MAX_VALUE :
+                    System.currentTimeMillis() + missTtl);
+            synchronized (segment) {
+                if (segment.version == version) {
+                    segment.put(key, entry);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Perform an update affecting a key's row, evicting its entry once done.
+     *
+     * @param key          the key
+     * @param sqlStatement the update statement
+     * @return the update count
+     * @throws SQLException if the update fails
+     */
+    public int dbUpdate(final K key, final SqlStatement sqlStatement) throws SQLException {
+        try {
+            return accessor.dbUpdate(sqlStatement);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    /**
+     * Evict the entry for a key.
+     *
+     * @param key the key
+     */
+    public void invalidate(final K key) {
+        final Segment<K, T> segment = segment(key);
+        synchronized (segment) {
+            segment.remove(key);
+            segment.version++;
+        }
+    }
+
+    /**
+     * Evict all entries.
+     */
+    public void invalidateAll() {
+        for (Segment<K, T> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+                segment.version++;
+            }
+        }
+    }
+
+    /**
+     * The number of entries cached, including misses.
+     *
+     * @return the entry count
+     */
+    public int size() {
+        int size = 0;
+        for (Segment<K, T> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * The number of finds satisfied from the cache.
+     *
+     * @return hit count
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * The number of finds that queried the database.
+     *
+     * @return miss count
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * The number of entries evicted as least recently used.
+     *
+     * @return eviction count
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    private Segment<K, T> segment(K key) {
+        final int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+    }
+
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    private static final class Segment<K, T> extends LinkedHashMap<K, Cached<T>> {
+        private static final long serialVersionUID = 1L;
+        private final int capacity;
+        private final transient AtomicLong evictions;
+        private long version;
+
+        Segment(int capacity, AtomicLong evictions) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, Cached<T>> eldest) {
+            if (size() > capacity) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    private static final class Cached<T> {
+        final Optional<T> row;
+        final long expires;
+
+        Cached(Optional<T> row, long expires) {
+            this.row = row;
+            this.expires = expires;
+        }
+    }
+
+    /**
+     * A builder for a {@link KeyedCache}.
+     *
+     * @param <K> the type of the key
+     * @param <T> the type of the row
+     */
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    public static final class Builder<K, T> {
+        private final DbAccessor accessor;
+        private final Function<K, SqlStatement> finder;
+        private final Extractor<T> extractor;
+        private int maxSize = 10_000;
+        private int segments = 16;
+        private long missTtl;
+
+        private Builder(DbAccessor accessor, Function<K, SqlStatement> finder, Extractor<T> extractor) {
+            this.accessor = accessor;
+            this.finder = finder;
+            this.extractor = extractor;
+        }
+
+        /**
+         * The most entries cached, default 10000, divided evenly between the segments.
+         *
+         * @param maxSize the maximum entries
+         * @return this builder
+         */
+        public Builder<K, T> withMaxSize(int maxSize) {
+            if (maxSize < 1) {
+                throw new IllegalArgumentException("Maximum size must be positive.");
+            }
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        /**
+         * The number of segments, default 16, rounded up to a power of two, and reduced if need be so that each
+         * segment holds at least one entry within the maximum size.
+         *
+         * @param segments the segment count
+         * @return this builder
+         */
+        public Builder<K, T> withSegments(int segments) {
+            if (segments < 1 || segments > 1 << 16) {
+                throw new IllegalArgumentException("Segments must be between 1 and 65536.");
+            }
+            this.segments = segments == 1 ? 1 : Integer.highestOneBit(segments - 1) << 1;
+            return this;
+        }
+
+        /**
+         * How long keys with no row are cached, default zero, not caching them.
+         *
+         * @param millis the time to live of misses in milliseconds
+         * @return this builder
+         */
+        public Builder<K, T> withMissTtl(long millis) {
+            this.missTtl = millis;
+            return this;
+        }
+
+        /**
+         * Build the cache.
+         *
+         * @return the cache
+         */
+        public KeyedCache<K, T> build() {
+            return new KeyedCache<>(this);
+        }
+    }
+}
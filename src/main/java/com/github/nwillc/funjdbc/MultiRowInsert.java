@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc;
+
+import com.github.nwillc.funjdbc.functions.Binder;
+import com.github.nwillc.funjdbc.functions.Extractor;
+import com.github.nwillc.funjdbc.utils.Parameters;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Rewrites a single row <code>INSERT ... VALUES (?, ?)</code> statement into multi-row
+ * <code>VALUES (?, ?), (?, ?), ...</code> statements, and executes them over a stream of items, with as many rows
+ * per statement as fit under a parameter limit. Binders that apply the offset themselves, such as those from
+ * {@link com.github.nwillc.funjdbc.utils.BFactory}, bind each row directly. Others, typically lambdas, bind to offset
+ * views of the statement, created once per statement rather than per row.
+ *
+ * @since 1.1.0
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+final class MultiRowInsert {
+    private final String prefix;
+    private final String row;
+    private final String suffix;
+    private final int parametersPerRow;
+
+    MultiRowInsert(String sql) {
+        final int[] placeholders = NamedSql.positional(sql).getPlaceholders();
+        final int values = valuesKeyword(sql);
+        final int open = values < 0 ? -1 : sql.indexOf('(', values);
+        final int close = open < 0 ? -1 : closing(sql, open);
+        if (close < 0 || placeholders.length == 0) {
+            throw new IllegalArgumentException("Not a parameterized single row INSERT ... VALUES (...) statement: " + sql);
+        }
+        for (int placeholder : placeholders) {
+            if (placeholder < open || placeholder > close) {
+                throw new IllegalArgumentException("All parameters must be in the VALUES row: " + sql);
+            }
+        }
+        prefix = sql.substring(0, open);
+        row = sql.substring(open, close + 1);
+        suffix = sql.substring(close + 1);
+        parametersPerRow = placeholders.length;
+    }
+
+    /**
+     * The number of rows per statement that keeps the parameter count within a limit.
+     *
+     * @param maxParameters the parameter limit
+     * @return the rows per statement, at least one
+     */
+    int rowsPerStatement(int maxParameters) {
+        return Math.max(1, maxParameters / parametersPerRow);
+    }
+
+    /**
+     * The SQL to insert a number of rows.
+     *
+     * @param rows the number of rows
+     * @return the SQL
+     */
+    String sql(int rows) {
+        final StringBuilder sql = new StringBuilder(prefix.length() + suffix.length() + rows * (row.length() + 2));
+        sql.append(prefix);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(row);
+        }
+        return sql.append(suffix).toString();
+    }
+
+    /**
+     * Insert the items, collecting generated keys if a key extractor is provided.
+     *
+     * @param connection    the connection
+     * @param cache         the statement cache, used when no keys are collected
+     * @param items         the items
+     * @param binder        the row binder
+     * @param maxParameters the parameter limit per statement
+     * @param keyExtractor  the generated key extractor, or null
+     * @param keyColumns    the generated key columns
+     * @param keys          the list keys are added to
+     * @param <T>           the item type
+     * @param <K>           the key type
+     * @return the count of rows inserted
+     * @throws SQLException if an insert fails
+     */
+    <T, K> long insert(Connection connection, StatementCache cache, Iterator<T> items, Binder<T> binder, int maxParameters,
+                       Extractor<K> keyExtractor, String[] keyColumns, List<K> keys) throws SQLException {
+        final int rows = rowsPerStatement(maxParameters);
+        final Object[] buffer = new Object[rows];
+        final boolean direct = bindsOffset(binder);
+        PreparedStatement full = null;
+        PreparedStatement[] fullViews = null;
+        long count = 0;
+        try {
+            while (items.hasNext()) {
+                int size = 0;
+                while (size < rows && items.hasNext()) {
+                    buffer[size++] = items.next();
+                }
+                if (size == rows) {
+                    if (full == null) {
+                        full = prepare(connection, cache, rows, keyExtractor, keyColumns);
+                        fullViews = direct ? null : new PreparedStatement[rows];
+                    }
+                    count += execute(full, fullViews, buffer, size, binder, keyExtractor, keys);
+                } else {
+                    final PreparedStatement partial = prepare(connection, cache, size, keyExtractor, keyColumns);
+                    try {
+                        count += execute(partial, direct ? null : new PreparedStatement[size], buffer, size, binder,
+                                keyExtractor, keys);
+                    } finally {
+                        cache.release(partial);
+                    }
+                }
+            }
+        } finally {
+            cache.release(full);
+        }
+        return count;
+    }
+
+    private PreparedStatement prepare(Connection connection, StatementCache cache, int rows,
+                                      Extractor<?> keyExtractor, String[] keyColumns) throws SQLException {
+        return keyExtractor == null ? cache.prepare(connection, sql(rows)) : connection.prepareStatement(sql(rows), keyColumns);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T, K> int execute(PreparedStatement statement, PreparedStatement[] views, Object[] buffer, int size,
+                               Binder<T> binder, Extractor<K> keyExtractor, List<K> keys) throws SQLException {
+        for (int i = 0; i < size; i++) {
+            final int offset = i * parametersPerRow;
+            if (views == null || offset == 0) {
+                binder.bind(statement, offset, (T) buffer[i]);
+            } else {
+                if (views[i] == null) {
+                    views[i] = Parameters.offset(statement, offset);
+                }
+                binder.bind(views[i], (T) buffer[i]);
+            }
+            buffer[i] = null;
+        }
+        final int count = statement.executeUpdate();
+        if (keyExtractor != null) {
+            try (ResultSet resultSet = statement.getGeneratedKeys()) {
+                while (resultSet.next()) {
+                    keys.add(keyExtractor.extract(resultSet));
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Whether a binder overrides {@link Binder#bind(PreparedStatement, int, Object)} to apply offsets itself.
+     *
+     * @param binder the binder
+     * @return true if it does
+     */
+    static boolean bindsOffset(Binder<?> binder) {
+        try {
+            return !binder.getClass().getMethod("bind", PreparedStatement.class, int.class, Object.class).isDefault();
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static int valuesKeyword(String sql) {
+        final String upper = sql.toUpperCase(Locale.ROOT);
+        int index = upper.indexOf("VALUES");
+        while (index >= 0) {
+            final boolean before = index == 0 || !Character.isJavaIdentifierPart(upper.charAt(index - 1));
+            final int after = index + "VALUES".length();
+            if (before && (after == upper.length() || !Character.isJavaIdentifierPart(upper.charAt(after)))) {
+                return index;
+            }
+            index = upper.indexOf("VALUES", after);
+        }
+        return -1;
+    }
+
+    private static int closing(String sql, int open) {
+        int depth = 0;
+        char quote = 0;
+        for (int i = open; i < sql.length(); i++) {
+            final char c = sql.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SQL with named parameters, of the form :name, compiled into JDBC SQL with '?' placeholders and a precomputed
+ * mapping of names to parameter indexes. Quoted strings, quoted identifiers, comments and '::' casts are left
+ * untouched. The position of each placeholder in the JDBC SQL is recorded too, and SQL that already uses '?'
+ * placeholders can be scanned for just those positions. Compilations are cached, so each template is only
+ * scanned once.
+ *
+ * @since 1.1.0
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+final class NamedSql {
+    private static final int CACHE_LIMIT = 1024;
+    private static final Map<String, NamedSql> CACHE = new ConcurrentHashMap<>();
+    private static final Map<String, NamedSql> POSITIONAL_CACHE = new ConcurrentHashMap<>();
+    private final String sql;
+    private final int count;
+    private final Map<String, int[]> indexes;
+    private final int[] placeholders;
+
+    private NamedSql(String sql, List<String> names, List<Integer> placeholders) {
+        this.sql = sql;
+        this.count = names.size();
+        this.placeholders = placeholders.stream().mapToInt(Integer::intValue).toArray();
+        final Map<String, List<Integer>> positions = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            positions.computeIfAbsent(names.get(i), k -> new ArrayList<>()).add(i + 1);
+        }
+        final Map<String, int[]> map = new HashMap<>();
+        positions.forEach((name, list) -> map.put(name, list.stream().mapToInt(Integer::intValue).toArray()));
+        this.indexes = Collections.unmodifiableMap(map);
+    }
+
+    static NamedSql compile(String namedSql) {
+        return compile(CACHE, namedSql, true);
+    }
+
+    static NamedSql positional(String sql) {
+        return compile(POSITIONAL_CACHE, sql, false);
+    }
+
+    private static NamedSql compile(Map<String, NamedSql> cache, String sql, boolean named) {
+        final NamedSql cached = cache.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+        final NamedSql compiled = parse(sql, named);
+        if (cache.size() < CACHE_LIMIT) {
+            cache.putIfAbsent(sql, compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * The JDBC SQL, with a '?' in place of each named parameter.
+     *
+     * @return the SQL
+     */
+    String getSql() {
+        return sql;
+    }
+
+    /**
+     * The mapping of each parameter name to the JDBC parameter indexes, starting at 1, it is bound to.
+     *
+     * @return the name to indexes map
+     */
+    Map<String, int[]> getIndexes() {
+        return indexes;
+    }
+
+    /**
+     * The character offsets of each '?' placeholder in the JDBC SQL, in parameter order.
+     *
+     * @return the placeholder offsets
+     */
+    int[] getPlaceholders() {
+        return placeholders;
+    }
+
+    /**
+     * Order the named values into positional arguments for the JDBC SQL.
+     *
+     * @param values the named values
+     * @return the positional arguments
+     * @throws IllegalArgumentException if a parameter has no value
+     */
+    Object[] arguments(Map<String, ?> values) {
+        final Object[] args = new Object[count];
+        for (Map.Entry<String, int[]> entry : indexes.entrySet()) {
+            final Object value = values.get(entry.getKey());
+            if (value == null && !values.containsKey(entry.getKey())) {
+                throw new IllegalArgumentException("No value for parameter :" + entry.getKey());
+            }
+            for (int index : entry.getValue()) {
+                args[index - 1] = value;
+            }
+        }
+        return args;
+    }
+
+    @SuppressWarnings({"PMD.CyclomaticComplexity", "PMD.AvoidReassigningLoopVariables"})
+    private static NamedSql parse(String namedSql, boolean named) {
+        final StringBuilder sql = new StringBuilder(namedSql.length());
+        final List<String> names = new ArrayList<>();
+        final List<Integer> placeholders = new ArrayList<>();
+        final int length = namedSql.length();
+        int i = 0;
+        while (i < length) {
+            final char c = namedSql.charAt(i);
+            int end = i + 1;
+            if (c == '\'' || c == '"') {
+                end = namedSql.indexOf(c, i + 1);
+                end = end < 0 ? length : end + 1;
+            } else if (c == '-' && namedSql.startsWith("--", i)) {
+                end = namedSql.indexOf('\n', i);
+                end = end < 0 ? length : end + 1;
+            } else if (c == '/' && namedSql.startsWith("/*", i)) {
+                end = namedSql.indexOf("*/", i + 2);
+                end = end < 0 ? length : end + 2;
+            } else if (c == '?') {
+                if (named) {
+                    throw new IllegalArgumentException("SQL with named parameters can not also use '?' placeholders.");
+                }
+                placeholders.add(sql.length());
+            } else if (named && c == ':' && namedSql.startsWith("::", i)) {
+                end = i + 2;
+            } else if (named && c == ':' && i + 1 < length && Character.isJavaIdentifierStart(namedSql.charAt(i + 1))) {
+                end = i + 2;
+                while (end < length && Character.isJavaIdentifierPart(namedSql.charAt(end))) {
+                    end++;
+                }
+                names.add(namedSql.substring(i + 1, end));
+                placeholders.add(sql.length());
+                sql.append('?');
+                i = end;
+                continue;
+            }
+            sql.append(namedSql, i, end);
+            i = end;
+        }
+        return new NamedSql(sql.toString(), names, placeholders);
+    }
+}
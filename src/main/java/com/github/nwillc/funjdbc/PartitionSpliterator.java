@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc;
+
+import com.github.nwillc.funjdbc.functions.Extractor;
+
+import java.math.BigInteger;
+import java.sql.SQLException;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static com.github.nwillc.funjdbc.utils.Throwables.propagate;
+
+/**
+ * A Spliterator over the results of a query split into key range partitions. It splits along partition
+ * boundaries, and each partition's query is run, on its own connection, only when traversal reaches it, so a
+ * parallel stream queries its partitions concurrently. One created not to split queries its partitions in turn,
+ * for an accessor whose connection can't be shared between threads. Partitions left open when the stream is
+ * closed are closed by {@link #close()}.
+ *
+ * @param <T> the element type
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+final class PartitionSpliterator<T> implements Spliterator<T> {
+    private final DbAccessor accessor;
+    private final SqlStatement[] partitions;
+    private final Extractor<T> extractor;
+    private final boolean splittable;
+    private final Queue<Stream<T>> open;
+    private int index;
+    private final int fence;
+    private Stream<T> current;
+    private Spliterator<T> rows;
+
+    private PartitionSpliterator(DbAccessor accessor, SqlStatement[] partitions, Extractor<T> extractor,
+                                 boolean splittable, Queue<Stream<T>> open, int index, int fence) {
+        this.accessor = accessor;
+        this.partitions = partitions;
+        this.extractor = extractor;
+        this.splittable = splittable;
+        this.open = open;
+        this.index = index;
+        this.fence = fence;
+    }
+
+    /**
+     * Create a spliterator over a query partitioned into key ranges. The query is wrapped as
+     * <code>SELECT * FROM (template) p WHERE p.keyColumn BETWEEN ? AND ?</code> once per range, the ranges
+     * evenly dividing min to max inclusive.
+     *
+     * @param accessor   the accessor to query with
+     * @param template   the query to partition
+     * @param keyColumn  the numeric key column to partition on
+     * @param min        the lowest key
+     * @param max        the highest key
+     * @param partitions the number of partitions
+     * @param extractor  the extractor for rows
+     * @param <T>        the element type
+     * @return the spliterator
+     */
+    static <T> PartitionSpliterator<T> of(DbAccessor accessor, SqlStatement template, String keyColumn,
+                                          long min, long max, int partitions, Extractor<T> extractor) {
+        return of(accessor, template, keyColumn, min, max, partitions, extractor, true);
+    }
+
+    /**
+     * Create a spliterator over a query partitioned into key ranges, as
+     * {@link #of(DbAccessor, SqlStatement, String, long, long, int, Extractor)}, optionally never splitting.
+     *
+     * @param accessor   the accessor to query with
+     * @param template   the query to partition
+     * @param keyColumn  the numeric key column to partition on
+     * @param min        the lowest key
+     * @param max        the highest key
+     * @param partitions the number of partitions
+     * @param extractor  the extractor for rows
+     * @param splittable false to query the partitions in turn even in a parallel stream
+     * @param <T>        the element type
+     * @return the spliterator
+     */
+    static <T> PartitionSpliterator<T> of(DbAccessor accessor, SqlStatement template, String keyColumn,
+                                          long min, long max, int partitions, Extractor<T> extractor,
+                                          boolean splittable) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("Partitions must be positive.");
+        }
+        if (min > max) {
+            throw new IllegalArgumentException("Minimum key exceeds maximum key.");
+        }
+        final BigInteger low = BigInteger.valueOf(min);
+        final BigInteger span = BigInteger.valueOf(max).subtract(low).add(BigInteger.ONE);
+        final int count = span.compareTo(BigInteger.valueOf(partitions)) < 0 ? span.intValue() : partitions;
+        final BigInteger divisor = BigInteger.valueOf(count);
+        final String suffix = ") p WHERE p." + keyColumn + " BETWEEN ? AND ?";
+        final SqlStatement[] statements = new SqlStatement[count];
+        long from = min;
+        for (int i = 0; i < count; i++) {
+            final long to = low.add(span.multiply(BigInteger.valueOf(i + 1L)).divide(divisor))
+                    .subtract(BigInteger.ONE).longValue();
+            statements[i] = template.wrap("SELECT * FROM (", suffix, from, to);
+            from = to + 1;
+        }
+        return new PartitionSpliterator<>(accessor, statements, extractor, splittable, new ConcurrentLinkedQueue<>(),
+                0, count);
+    }
+
+    /**
+     * The SQL statements of the partitions.
+     *
+     * @return the statements
+     */
+    SqlStatement[] getPartitions() {
+        return partitions.clone();
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        while (true) {
+            if (rows == null && !openNext()) {
+                return false;
+            }
+            if (rows.tryAdvance(action)) {
+                return true;
+            }
+            closeCurrent();
+        }
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        while (rows != null || openNext()) {
+            rows.forEachRemaining(action);
+            closeCurrent();
+        }
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        final int remaining = fence - index;
+        if (!splittable || rows != null || remaining < 2) {
+            return null;
+        }
+        final int middle = index + remaining / 2;
+        final PartitionSpliterator<T> prefix =
+                new PartitionSpliterator<>(accessor, partitions, extractor, true, open, index, middle);
+        index = middle;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED;
+    }
+
+    /**
+     * Close any partitions opened but not fully traversed.
+     */
+    void close() {
+        Stream<T> stream;
+        while ((stream = open.poll()) != null) {
+            stream.close();
+        }
+    }
+
+    private boolean openNext() {
+        if (index >= fence) {
+            return false;
+        }
+        try {
+            current = accessor.dbQuery(partitions[index++], extractor);
+        } catch (SQLException e) {
+            throw propagate(e);
+        }
+        open.add(current);
+        rows = current.spliterator();
+        return true;
+    }
+
+    @SuppressWarnings("PMD.NullAssignment")
+    private void closeCurrent() {
+        open.remove(current);
+        current.close();
+        current = null;
+        rows = null;
+    }
+}
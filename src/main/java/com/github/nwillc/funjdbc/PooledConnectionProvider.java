@@ -0,0 +1,543 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc;
+
+import almost.functional.utils.LogFactory;
+import com.github.nwillc.funjdbc.functions.ConnectionProvider;
+import com.github.nwillc.funjdbc.utils.Closer;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * A pooling ConnectionProvider, holding connections obtained from another provider for reuse. Borrowing
+ * takes no locks: a semaphore bounds the connections in use, and connections are claimed by compare and set on
+ * their state, trying first the connection the borrowing thread last used. Connections are validated only when
+ * borrowed after being idle longer than the validation interval. Closing a borrowed connection returns it to the
+ * pool, rolling back any uncommitted work, and restoring auto commit, read only and transaction isolation if the
+ * borrower changed them. Connections borrowed longer than the leak timeout are logged.
+ * <pre>
+ * PooledConnectionProvider pool = PooledConnectionProvider.builder(() -&gt; DriverManager.getConnection(url))
+ *     .withMaxSize(20)
+ *     .build();
+ * </pre>
+ *
+ * @since 1.1.0
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class PooledConnectionProvider implements ConnectionProvider, AutoCloseable {
+    private static final Logger LOGGER = LogFactory.getLogger();
+    private final ConnectionProvider source;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long validationIdleMillis;
+    private final long leakTimeoutMillis;
+    private final CopyOnWriteArrayList<Entry> entries = new CopyOnWriteArrayList<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final Semaphore permits;
+    private final ThreadLocal<WeakReference<Entry>> affinity = new ThreadLocal<>();
+    private final ScheduledExecutorService housekeeper;
+    private final AtomicLong borrows = new AtomicLong();
+    private final AtomicLong affinityHits = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong leaks = new AtomicLong();
+    private volatile boolean closed;
+
+    private PooledConnectionProvider(Builder builder) throws SQLException {
+        source = builder.source;
+        minSize = builder.minSize;
+        maxSize = builder.maxSize;
+        borrowTimeoutMillis = builder.borrowTimeoutMillis;
+        validationIdleMillis = builder.validationIdleMillis;
+        leakTimeoutMillis = builder.leakTimeoutMillis;
+        permits = new Semaphore(maxSize);
+        try {
+            fill();
+        } catch (SQLException e) {
+            entries.forEach(entry -> Closer.close(entry.connection));
+            throw e;
+        }
+        if (leakTimeoutMillis > 0 || minSize > 0) {
+            housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "fun-jdbc-pool-housekeeper");
+                thread.setDaemon(true);
+                return thread;
+            });
+            final long period = leakTimeoutMillis > 0 ? Math.max(leakTimeoutMillis / 2, 10) : 30_000;
+            housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            housekeeper = null;
+        }
+    }
+
+    /**
+     * Start building a pool of connections from a source provider.
+     *
+     * @param source the provider of new connections
+     * @return a builder
+     */
+    public static Builder builder(ConnectionProvider source) {
+        return new Builder(source);
+    }
+
+    /**
+     * Borrow a connection from the pool, waiting up to the borrow timeout if all connections are in use.
+     * Closing the connection returns it to the pool.
+     *
+     * @return a connection
+     * @throws SQLException if the pool is closed, the wait times out, or a new connection can not be obtained
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Pool closed");
+        }
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                throw new SQLException("Timed out after " + borrowTimeoutMillis + "ms waiting for a connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for a connection", e);
+        }
+        try {
+            final Entry entry = claim();
+            borrows.incrementAndGet();
+            entry.borrowed = System.currentTimeMillis();
+            entry.leaked = false;
+            entry.borrower = leakTimeoutMillis > 0 ? new Exception("Connection borrowed here") : null;
+            affinity.set(entry.self);
+            return entry.lend();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Close the pool. Idle connections are closed immediately, borrowed ones as they are returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (housekeeper != null) {
+            housekeeper.shutdownNow();
+        }
+        for (Entry entry : entries) {
+            if (entry.state.compareAndSet(Entry.IDLE, Entry.REMOVED)) {
+                discard(entry);
+            }
+        }
+    }
+
+    /**
+     * The number of connections held by the pool, idle or in use.
+     *
+     * @return total connections
+     */
+    public int getTotal() {
+        return size.get();
+    }
+
+    /**
+     * The number of connections currently borrowed.
+     *
+     * @return active connections
+     */
+    public int getActive() {
+        return maxSize - permits.availablePermits();
+    }
+
+    /**
+     * The number of connections held by the pool but not borrowed.
+     *
+     * @return idle connections
+     */
+    public int getIdle() {
+        return (int) entries.stream().filter(entry -> entry.state.get() == Entry.IDLE).count();
+    }
+
+    /**
+     * An estimate of the number of threads waiting to borrow a connection.
+     *
+     * @return waiting threads
+     */
+    public int getWaiting() {
+        return permits.getQueueLength();
+    }
+
+    /**
+     * The number of successful borrows.
+     *
+     * @return borrow count
+     */
+    public long getBorrows() {
+        return borrows.get();
+    }
+
+    /**
+     * The number of borrows satisfied by the connection the borrowing thread last used.
+     *
+     * @return affinity hit count
+     */
+    public long getAffinityHits() {
+        return affinityHits.get();
+    }
+
+    /**
+     * The number of connections obtained from the source provider.
+     *
+     * @return created count
+     */
+    public long getCreated() {
+        return created.get();
+    }
+
+    /**
+     * The number of idle connections found invalid when borrowed.
+     *
+     * @return validation failure count
+     */
+    public long getValidationFailures() {
+        return validationFailures.get();
+    }
+
+    /**
+     * The number of borrows that timed out.
+     *
+     * @return timeout count
+     */
+    public long getTimeouts() {
+        return timeouts.get();
+    }
+
+    /**
+     * The number of borrowed connections detected as held beyond the leak timeout.
+     *
+     * @return leak count
+     */
+    public long getLeaks() {
+        return leaks.get();
+    }
+
+    private Entry claim() throws SQLException {
+        final WeakReference<Entry> last = affinity.get();
+        final Entry preferred = last == null ? null : last.get();
+        if (preferred != null && preferred.state.compareAndSet(Entry.IDLE, Entry.IN_USE)) {
+            if (validate(preferred)) {
+                affinityHits.incrementAndGet();
+                return preferred;
+            }
+        }
+        while (true) {
+            if (closed) {
+                throw new SQLException("Pool closed");
+            }
+            for (Entry entry : entries) {
+                if (entry.state.compareAndSet(Entry.IDLE, Entry.IN_USE) && validate(entry)) {
+                    return entry;
+                }
+            }
+            final Entry entry = create(Entry.IN_USE);
+            if (entry != null) {
+                return entry;
+            }
+            Thread.yield();
+        }
+    }
+
+    private boolean validate(Entry entry) {
+        if (validationIdleMillis < 0 || System.currentTimeMillis() - entry.lastUsed <= validationIdleMillis) {
+            return true;
+        }
+        boolean valid;
+        try {
+            valid = entry.connection.isValid((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(borrowTimeoutMillis)));
+        } catch (SQLException e) {
+            valid = false;
+        }
+        if (!valid) {
+            validationFailures.incrementAndGet();
+            entry.state.set(Entry.REMOVED);
+            discard(entry);
+        }
+        return valid;
+    }
+
+    private Entry create(int state) throws SQLException {
+        int current;
+        do {
+            current = size.get();
+            if (current >= maxSize) {
+                return null;
+            }
+        } while (!size.compareAndSet(current, current + 1));
+        Connection connection = null;
+        final Entry entry;
+        try {
+            connection = source.getConnection();
+            entry = new Entry(connection, state, connection.isReadOnly(), connection.getTransactionIsolation());
+        } catch (SQLException | RuntimeException e) {
+            size.decrementAndGet();
+            Closer.close(connection);
+            throw e;
+        }
+        created.incrementAndGet();
+        entries.add(entry);
+        return entry;
+    }
+
+    private void fill() throws SQLException {
+        while (!closed && size.get() < minSize && create(Entry.IDLE) != null) {
+            // keep creating
+        }
+    }
+
+    private void discard(Entry entry) {
+        if (entries.remove(entry)) {
+            size.decrementAndGet();
+        }
+        Closer.close(entry.connection);
+    }
+
+    private void giveBack(Entry entry) {
+        boolean reusable;
+        try {
+            reusable = !closed && !entry.connection.isClosed();
+            if (reusable && !entry.connection.getAutoCommit()) {
+                entry.connection.rollback();
+                entry.connection.setAutoCommit(true);
+            }
+            if (reusable && entry.reconfigured) {
+                entry.connection.setReadOnly(entry.readOnly);
+                entry.connection.setTransactionIsolation(entry.isolation);
+                entry.reconfigured = false;
+            }
+        } catch (SQLException e) {
+            reusable = false;
+        }
+        entry.borrower = null;
+        entry.lastUsed = System.currentTimeMillis();
+        if (reusable) {
+            entry.state.set(Entry.IDLE);
+        } else {
+            entry.state.set(Entry.REMOVED);
+            discard(entry);
+        }
+        permits.release();
+    }
+
+    private void housekeep() {
+        final long now = System.currentTimeMillis();
+        if (leakTimeoutMillis > 0) {
+            for (Entry entry : entries) {
+                if (entry.state.get() == Entry.IN_USE && !entry.leaked && now - entry.borrowed > leakTimeoutMillis) {
+                    entry.leaked = true;
+                    leaks.incrementAndGet();
+                    final Exception borrower = entry.borrower;
+                    LOGGER.warning("Connection held longer than " + leakTimeoutMillis + "ms, possible leak" +
+                            (borrower == null ? "" : " at " + borrowedAt(borrower)));
+                }
+            }
+        }
+        try {
+            fill();
+        } catch (SQLException e) {
+            LOGGER.info("Failed to replenish pool: " + e.getMessage());
+        }
+    }
+
+    /**
+     * The first frame of a borrower's stack outside the pool, the code that borrowed the connection.
+     */
+    private static StackTraceElement borrowedAt(Exception borrower) {
+        final String pool = PooledConnectionProvider.class.getName();
+        final StackTraceElement[] trace = borrower.getStackTrace();
+        for (StackTraceElement element : trace) {
+            final String name = element.getClassName();
+            if (!name.equals(pool) && !name.startsWith(pool + '$')) {
+                return element;
+            }
+        }
+        return trace.length == 0 ? null : trace[trace.length - 1];
+    }
+
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    private final class Entry {
+        static final int IDLE = 0;
+        static final int IN_USE = 1;
+        static final int REMOVED = 2;
+        final Connection connection;
+        final AtomicInteger state;
+        final WeakReference<Entry> self = new WeakReference<>(this);
+        volatile long lastUsed = System.currentTimeMillis();
+        volatile long borrowed;
+        volatile boolean leaked;
+        volatile Exception borrower;
+        final boolean readOnly;
+        final int isolation;
+        volatile boolean reconfigured;
+
+        Entry(Connection connection, int state, boolean readOnly, int isolation) {
+            this.connection = connection;
+            this.state = new AtomicInteger(state);
+            this.readOnly = readOnly;
+            this.isolation = isolation;
+        }
+
+        Connection lend() {
+            final AtomicBoolean returned = new AtomicBoolean();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        final String name = method.getName();
+                        if ("close".equals(name) && method.getParameterCount() == 0) {
+                            if (returned.compareAndSet(false, true)) {
+                                giveBack(this);
+                            }
+                            return null;
+                        }
+                        if ("isClosed".equals(name) && method.getParameterCount() == 0 && returned.get()) {
+                            return true;
+                        }
+                        if (returned.get()) {
+                            throw new SQLException("Connection returned to pool");
+                        }
+                        if ("setReadOnly".equals(name) || "setTransactionIsolation".equals(name)) {
+                            reconfigured = true;
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+
+    /**
+     * A builder for a {@link PooledConnectionProvider}.
+     */
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    public static final class Builder {
+        private final ConnectionProvider source;
+        private int minSize;
+        private int maxSize = 10;
+        private long borrowTimeoutMillis = 30_000;
+        private long validationIdleMillis = 5_000;
+        private long leakTimeoutMillis;
+
+        private Builder(ConnectionProvider source) {
+            if (source == null) {
+                throw new IllegalArgumentException("A source of connections is required.");
+            }
+            this.source = source;
+        }
+
+        /**
+         * The number of connections the pool opens on creation and tries to keep open, default 0.
+         *
+         * @param minSize the minimum size
+         * @return this builder
+         */
+        public Builder withMinSize(int minSize) {
+            if (minSize < 0) {
+                throw new IllegalArgumentException("Minimum size must not be negative.");
+            }
+            this.minSize = minSize;
+            return this;
+        }
+
+        /**
+         * The most connections the pool will open, default 10.
+         *
+         * @param maxSize the maximum size
+         * @return this builder
+         */
+        public Builder withMaxSize(int maxSize) {
+            if (maxSize < 1) {
+                throw new IllegalArgumentException("Maximum size must be positive.");
+            }
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        /**
+         * How long a borrow waits for a connection before failing, default 30 seconds.
+         *
+         * @param millis the timeout in milliseconds
+         * @return this builder
+         */
+        public Builder withBorrowTimeout(long millis) {
+            this.borrowTimeoutMillis = millis;
+            return this;
+        }
+
+        /**
+         * How long a connection may be idle before it is validated on borrow, default 5 seconds. A negative value
+         * disables validation.
+         *
+         * @param millis the idle time in milliseconds
+         * @return this builder
+         */
+        public Builder withValidationIdle(long millis) {
+            this.validationIdleMillis = millis;
+            return this;
+        }
+
+        /**
+         * How long a connection may be borrowed before it's logged as a possible leak, default 0, disabled.
+         *
+         * @param millis the leak timeout in milliseconds
+         * @return this builder
+         */
+        public Builder withLeakTimeout(long millis) {
+            this.leakTimeoutMillis = millis;
+            return this;
+        }
+
+        /**
+         * Build the pool, opening its minimum number of connections.
+         *
+         * @return the pool
+         * @throws SQLException if the minimum connections can not be opened
+         */
+        public PooledConnectionProvider build() throws SQLException {
+            if (minSize > maxSize) {
+                throw new IllegalArgumentException("Minimum size exceeds maximum size.");
+            }
+            return new PooledConnectionProvider(this);
+        }
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Objects;
+
+/**
+ * Per query tuning of the statements and connection used by a query. Settings left unset keep the driver's or
+ * connection's defaults, set ones override them for the query only. Instances are immutable, each with method
+ * returning a modified copy. For example, on drivers such as PostgreSQL that buffer whole result sets unless
+ * a fetch size is set outside auto-commit, {@link #streaming(int)} lets a large result be consumed in
+ * constant memory.
+ *
+ * @since 1.1.0
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class QueryOptions {
+    /**
+     * Options leaving all settings at the driver and connection defaults.
+     */
+    public static final QueryOptions DEFAULT = new QueryOptions(0, 0, 0, 0, null, 0);
+    /**
+     * Options for a query expected to return at most one row: forward only, read only, and fetching and returning
+     * no more than the two rows needed to detect a second.
+     */
+    static final QueryOptions SINGLE_ROW = new QueryOptions(2, 2, ResultSet.TYPE_FORWARD_ONLY,
+            ResultSet.CONCUR_READ_ONLY, null, 0);
+    /**
+     * Options for a query only tested for any row.
+     */
+    static final QueryOptions FIRST_ROW = new QueryOptions(1, 1, ResultSet.TYPE_FORWARD_ONLY,
+            ResultSet.CONCUR_READ_ONLY, null, 0);
+    private final int fetchSize;
+    private final int maxRows;
+    private final int resultSetType;
+    private final int concurrency;
+    private final Boolean autoCommit;
+    private final int prefetch;
+
+    private QueryOptions(int fetchSize, int maxRows, int resultSetType, int concurrency, Boolean autoCommit,
+                         int prefetch) {
+        this.fetchSize = fetchSize;
+        this.maxRows = maxRows;
+        this.resultSetType = resultSetType;
+        this.concurrency = concurrency;
+        this.autoCommit = autoCommit;
+        this.prefetch = prefetch;
+    }
+
+    /**
+     * Options for streaming a large result through a server side cursor: a forward only, read only result set,
+     * fetched a given number of rows at a time, with auto-commit off for the duration of the query.
+     *
+     * @param fetchSize the rows to fetch at a time
+     * @return the options
+     */
+    public static QueryOptions streaming(int fetchSize) {
+        return DEFAULT.withFetchSize(fetchSize)
+                .withResultSetType(ResultSet.TYPE_FORWARD_ONLY)
+                .withConcurrency(ResultSet.CONCUR_READ_ONLY)
+                .withAutoCommit(false);
+    }
+
+    /**
+     * The number of rows fetched at a time, zero for the driver default.
+     *
+     * @return the fetch size
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * The maximum number of rows returned, zero for no limit.
+     *
+     * @return the max rows
+     */
+    public int getMaxRows() {
+        return maxRows;
+    }
+
+    /**
+     * The ResultSet type, zero for the driver default.
+     *
+     * @return the result set type
+     * @see ResultSet#TYPE_FORWARD_ONLY
+     */
+    public int getResultSetType() {
+        return resultSetType;
+    }
+
+    /**
+     * The ResultSet concurrency, zero for the driver default.
+     *
+     * @return the result set concurrency
+     * @see ResultSet#CONCUR_READ_ONLY
+     */
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * The auto-commit mode the connection is set to for the query, null to leave the connection's mode.
+     *
+     * @return the auto-commit mode
+     */
+    public Boolean getAutoCommit() {
+        return autoCommit;
+    }
+
+    /**
+     * The number of rows read ahead in the background into a buffer, zero if rows are read as consumed.
+     *
+     * @return the prefetch buffer size
+     */
+    public int getPrefetch() {
+        return prefetch;
+    }
+
+    /**
+     * Copy with a given fetch size.
+     *
+     * @param fetchSize the rows to fetch at a time, zero for the driver default
+     * @return the modified options
+     */
+    public QueryOptions withFetchSize(int fetchSize) {
+        if (fetchSize < 0) {
+            throw new IllegalArgumentException("Fetch size must not be negative.");
+        }
+        return new QueryOptions(fetchSize, maxRows, resultSetType, concurrency, autoCommit, prefetch);
+    }
+
+    /**
+     * Copy with a given row limit.
+     *
+     * @param maxRows the maximum rows returned, zero for no limit
+     * @return the modified options
+     */
+    public QueryOptions withMaxRows(int maxRows) {
+        if (maxRows < 0) {
+            throw new IllegalArgumentException("Max rows must not be negative.");
+        }
+        return new QueryOptions(fetchSize, maxRows, resultSetType, concurrency, autoCommit, prefetch);
+    }
+
+    /**
+     * Copy with a given ResultSet type.
+     *
+     * @param resultSetType one of the ResultSet TYPE_ constants
+     * @return the modified options
+     */
+    public QueryOptions withResultSetType(int resultSetType) {
+        return new QueryOptions(fetchSize, maxRows, resultSetType, concurrency, autoCommit, prefetch);
+    }
+
+    /**
+     * Copy with a given ResultSet concurrency.
+     *
+     * @param concurrency one of the ResultSet CONCUR_ constants
+     * @return the modified options
+     */
+    public QueryOptions withConcurrency(int concurrency) {
+        return new QueryOptions(fetchSize, maxRows, resultSetType, concurrency, autoCommit, prefetch);
+    }
+
+    /**
+     * Copy with a given auto-commit mode. The connection's mode is restored when the query completes.
+     *
+     * @param autoCommit the auto-commit mode for the query
+     * @return the modified options
+     */
+    public QueryOptions withAutoCommit(boolean autoCommit) {
+        return new QueryOptions(fetchSize, maxRows, resultSetType, concurrency, autoCommit, prefetch);
+    }
+
+    /**
+     * Copy with background prefetching. Rows are read and extracted on another thread into a buffer of a given
+     * size, which the stream consumes, so that waiting on the database overlaps with processing the rows. The
+     * reader waits while the buffer is full.
+     *
+     * @param prefetch the prefetch buffer size, zero to read rows as consumed
+     * @return the modified options
+     */
+    public QueryOptions withPrefetch(int prefetch) {
+        if (prefetch < 0) {
+            throw new IllegalArgumentException("Prefetch must not be negative.");
+        }
+        return new QueryOptions(fetchSize, maxRows, resultSetType, concurrency, autoCommit, prefetch);
+    }
+
+    /**
+     * Prepare a statement on a connection with these options.
+     *
+     * @param connection the connection
+     * @param sql        the SQL text
+     * @return the prepared statement
+     * @throws SQLException if the statement can not be prepared
+     */
+    public PreparedStatement prepare(Connection connection, String sql) throws SQLException {
+        final PreparedStatement statement = resultSetType == 0 && concurrency == 0 ?
+                connection.prepareStatement(sql) :
+                connection.prepareStatement(sql,
+                        resultSetType == 0 ? ResultSet.TYPE_FORWARD_ONLY : resultSetType,
+                        concurrency == 0 ? ResultSet.CONCUR_READ_ONLY : concurrency);
+        try {
+            apply(statement);
+        } catch (SQLException e) {
+            statement.close();
+            throw e;
+        }
+        return statement;
+    }
+
+    /**
+     * Apply the fetch size and row limit of these options to a statement.
+     *
+     * @param statement the statement
+     * @throws SQLException if the statement rejects the settings
+     */
+    public void apply(Statement statement) throws SQLException {
+        if (fetchSize > 0) {
+            statement.setFetchSize(fetchSize);
+        }
+        if (maxRows > 0) {
+            statement.setMaxRows(maxRows);
+        }
+    }
+
+    /**
+     * Set the connection's auto-commit mode for a query, if these options require a change.
+     *
+     * @param connection the connection
+     * @return the connection's previous mode if it was changed, otherwise null
+     * @throws SQLException if the mode can not be set
+     */
+    Boolean configure(Connection connection) throws SQLException {
+        if (autoCommit == null || connection.getAutoCommit() == autoCommit) {
+            return null;
+        }
+        connection.setAutoCommit(autoCommit);
+        return !autoCommit;
+    }
+
+    /**
+     * Restore a connection's auto-commit mode after a query, quietly.
+     *
+     * @param connection the connection, may be null
+     * @param previous   the mode returned by {@link #configure(Connection)}, may be null
+     */
+    static void restore(Connection connection, Boolean previous) {
+        if (connection == null || previous == null) {
+            return;
+        }
+        try {
+            connection.setAutoCommit(previous);
+        } catch (SQLException e) {
+            // Nothing to be done, the connection is about to be closed
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final QueryOptions that = (QueryOptions) o;
+        return fetchSize == that.fetchSize &&
+                maxRows == that.maxRows &&
+                resultSetType == that.resultSetType &&
+                concurrency == that.concurrency &&
+                Objects.equals(autoCommit, that.autoCommit) &&
+                prefetch == that.prefetch;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(fetchSize, maxRows, resultSetType, concurrency, autoCommit, prefetch);
+    }
+
+    @Override
+    public String toString() {
+        return "QueryOptions{fetchSize=" + fetchSize + ", maxRows=" + maxRows + ", resultSetType=" + resultSetType +
+                ", concurrency=" + concurrency + ", autoCommit=" + autoCommit + ", prefetch=" + prefetch + '}';
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc;
+
+import com.github.nwillc.funjdbc.functions.Extractor;
+import com.github.nwillc.funjdbc.functions.Flow;
+
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * A Publisher of query results. Each subscription runs the query afresh, on its first request, and extracts
+ * rows only as they are requested. Signals are delivered from the executor, one drain at a time, and the query's
+ * statement and connection are released on completion, failure or cancellation.
+ *
+ * @param <T> the element type
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+final class QueryPublisher<T> implements Flow.Publisher<T> {
+    private final DbAccessor accessor;
+    private final SqlStatement sqlStatement;
+    private final Extractor<T> extractor;
+    private final Executor executor;
+
+    QueryPublisher(DbAccessor accessor, SqlStatement sqlStatement, Extractor<T> extractor, Executor executor) {
+        this.accessor = accessor;
+        this.sqlStatement = sqlStatement;
+        this.extractor = extractor;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber, "A non null subscriber is required");
+        subscriber.onSubscribe(new QuerySubscription(subscriber));
+    }
+
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    private final class QuerySubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super T> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable invalid;
+        private boolean done;
+        private Stream<T> stream;
+        private Iterator<T> iterator;
+
+        QuerySubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalid = new IllegalArgumentException("Request must be positive, was " + n);
+            } else {
+                requested.accumulateAndGet(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    cancelled = true;
+                    subscriber.onError(e);
+                }
+            }
+        }
+
+        @SuppressWarnings("PMD.AvoidCatchingThrowable")
+        private void drain() {
+            int missed = 1;
+            do {
+                if (done) {
+                    return;
+                }
+                if (cancelled) {
+                    finish();
+                    return;
+                }
+                if (invalid != null) {
+                    finish();
+                    subscriber.onError(invalid);
+                    return;
+                }
+                try {
+                    final long demand = requested.get();
+                    long emitted = 0;
+                    if (demand > 0 && iterator == null) {
+                        stream = accessor.dbQuery(sqlStatement, extractor);
+                        iterator = stream.iterator();
+                    }
+                    while (emitted != demand && !cancelled) {
+                        if (!iterator.hasNext()) {
+                            finish();
+                            subscriber.onComplete();
+                            return;
+                        }
+                        subscriber.onNext(iterator.next());
+                        emitted++;
+                    }
+                    if (emitted != 0 && demand != Long.MAX_VALUE) {
+                        requested.addAndGet(-emitted);
+                    }
+                } catch (Throwable t) {
+                    finish();
+                    subscriber.onError(t instanceof UncheckedSQLException && t.getCause() instanceof SQLException ?
+                            t.getCause() : t);
+                    return;
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        @SuppressWarnings("PMD.NullAssignment")
+        private void finish() {
+            done = true;
+            if (stream != null) {
+                stream.close();
+                stream = null;
+                iterator = null;
+            }
+        }
+    }
+}
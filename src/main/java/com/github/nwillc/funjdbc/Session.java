@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc;
+
+import com.github.nwillc.funjdbc.functions.Enricher;
+import com.github.nwillc.funjdbc.functions.Extractor;
+import com.github.nwillc.funjdbc.functions.SessionFunction;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A DbAccessor bound to a single connection for the life of a session. Every call made through it shares the
+ * connection, which it hands out wrapped so that closing it does nothing, and a statement cache, which is cleared
+ * when the session closes. Sessions started from within a session join it, as do transactions started from within a
+ * transaction, the outermost transaction committing or rolling back whatever the connection's initial auto commit
+ * setting, and restoring that setting when done. As the connection can't be shared between threads, keyed
+ * enrichments and partitioned queries run their statements in turn on it rather than concurrently.
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+final class Session implements DbAccessor, AutoCloseable {
+    static final int CACHE_CAPACITY = 32;
+    private final Connection connection;
+    private final Connection shared;
+    private final StatementCache cache = new StatementCache(CACHE_CAPACITY);
+    private volatile boolean closed;
+    private boolean inTransaction;
+
+    Session(Connection connection) {
+        this.connection = connection;
+        this.shared = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if ("close".equals(method.getName()) && method.getParameterCount() == 0) {
+                        return null;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Session closed");
+        }
+        return shared;
+    }
+
+    @Override
+    public StatementCache getStatementCache() {
+        return cache;
+    }
+
+    @Override
+    public <R> R dbSession(SessionFunction<R> work) throws SQLException {
+        return work.apply(this);
+    }
+
+    @Override
+    public <R> R dbTransaction(SessionFunction<R> work) throws SQLException {
+        return transaction(null, work);
+    }
+
+    @Override
+    public <R> R dbTransaction(int isolation, SessionFunction<R> work) throws SQLException {
+        return transaction(isolation, work);
+    }
+
+    @Override
+    public <K, V> void dbEnrich(final SqlStatement scanStatement, final Function<Collection<K>, SqlStatement> keyedStatement,
+                                final Extractor<K> keyExtractor, Map<K, V> map, final Enricher<V> enricher,
+                                final EnrichOptions options) throws SQLException {
+        DbAccessor.super.dbEnrich(scanStatement, keyedStatement, keyExtractor, map, enricher,
+                options.withParallelism(1));
+    }
+
+    @Override
+    public <T> Stream<T> dbQueryPartitioned(final SqlStatement template, final String keyColumn, final long min,
+                                            final long max, final int partitions, final Extractor<T> extractor) {
+        final PartitionSpliterator<T> spliterator =
+                PartitionSpliterator.of(this, template, keyColumn, min, max, partitions, extractor, false);
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        cache.clear();
+    }
+
+    @SuppressWarnings("PMD.AvoidCatchingThrowable")
+    private <R> R transaction(Integer isolation, SessionFunction<R> work) throws SQLException {
+        getConnection();
+        if (inTransaction) {
+            return work.apply(this);
+        }
+        final int previous = connection.getTransactionIsolation();
+        final boolean changeIsolation = isolation != null && isolation != previous;
+        if (changeIsolation) {
+            connection.setTransactionIsolation(isolation);
+        }
+        final boolean autoCommit = connection.getAutoCommit();
+        if (autoCommit) {
+            connection.setAutoCommit(false);
+        }
+        inTransaction = true;
+        try {
+            final R result = work.apply(this);
+            connection.commit();
+            return result;
+        } catch (Throwable t) {
+            try {
+                connection.rollback();
+            } catch (SQLException e) {
+                t.addSuppressed(e);
+            }
+            throw t;
+        } finally {
+            inTransaction = false;
+            if (autoCommit) {
+                connection.setAutoCommit(true);
+            }
+            if (changeIsolation) {
+                connection.setTransactionIsolation(previous);
+            }
+        }
+    }
+}
@@ -17,37 +17,332 @@
 
 package com.github.nwillc.funjdbc;
 
+import com.github.nwillc.funjdbc.utils.Parameters;
 
-import org.pmw.tinylog.Logger;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static com.github.nwillc.funjdbc.utils.Closer.close;
 
 /**
- * A SQL statement comprised of a template SQL string, which is a {@link java.util.Formatter} string, and
- * the arguments to pass to it.
+ * A SQL statement comprised of a template SQL string, and the arguments to pass to it. By default the template is
+ * a {@link java.util.Formatter} string, and the arguments are formatted into the SQL text. A parameterized statement,
+ * created with {@link #prepared(String, Object...)}, instead keeps the SQL text constant, with JDBC '?' placeholders,
+ * and binds its arguments as PreparedStatement parameters. Named parameters, of the form :name, are supported by
+ * {@link #named(String, Map)}, which compiles them into a parameterized statement. A parameterized statement's
+ * argument can be an {@link InList}, see {@link #in(Collection)}, which expands to fill an IN list.
  *
  * @since 0.9.0
  */
 @SuppressWarnings("PMD.BeanMembersShouldSerialize")
 public final class SqlStatement {
     private final String sqlString;
+    private final boolean parameterized;
+    private SqlTemplate template;
     private Object[] args;
+    private boolean hasInLists;
+    private List<SqlStatement> expanded;
 
     public SqlStatement(String sqlString, Object... args) {
+        this(sqlString, false, args);
+    }
+
+    SqlStatement(SqlTemplate template, Object... args) {
+        this(template.toString(), false, args);
+        this.template = template;
+    }
+
+    private SqlStatement(String sqlString, boolean parameterized, Object... args) {
         this.sqlString = sqlString;
+        this.parameterized = parameterized;
         setArgs(args);
     }
 
     public void setArgs(Object... args) {
         this.args = args;
+        this.expanded = null;
+        this.hasInLists = false;
+        if (args != null) {
+            for (Object arg : args) {
+                if (arg instanceof InList) {
+                    hasInLists = true;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Is this statement's arguments bound as parameters rather than formatted into the SQL text.
+     *
+     * @return true if parameterized
+     * @since 1.1.0
+     */
+    public boolean isParameterized() {
+        return parameterized;
+    }
+
+    /**
+     * Get the SQL text to be sent to the database. For a parameterized statement this is the template unchanged,
+     * otherwise it is the template formatted with the arguments.
+     *
+     * @return the SQL text
+     * @since 1.1.0
+     */
+    public String getSql() {
+        if (hasInLists && parameterized) {
+            return single().getSql();
+        }
+        if (parameterized || args == null || args.length == 0) {
+            SqlTemplate.debug(sqlString);
+            return sqlString;
+        }
+        if (template == null) {
+            template = SqlTemplate.template(sqlString);
+        }
+        return template.render(args);
+    }
+
+    /**
+     * Bind the arguments of a parameterized statement to a PreparedStatement created from {@link #getSql()}.
+     * Statements that are not parameterized have nothing to bind.
+     *
+     * @param statement the PreparedStatement to bind to
+     * @throws SQLException if an argument can not be bound
+     * @since 1.1.0
+     */
+    public void bind(PreparedStatement statement) throws SQLException {
+        if (hasInLists && parameterized) {
+            single().bind(statement);
+        } else if (parameterized) {
+            Parameters.bind(statement, args);
+        }
+    }
+
+    /**
+     * Expand any {@link InList} arguments of a parameterized statement, returning the statements that must be
+     * executed to cover all their values. This is usually a single statement, but an InList larger than its
+     * maximum bucket size is split across several. Statements without InLists expand to just themselves.
+     *
+     * @return the expanded statements
+     * @throws IllegalArgumentException if the placeholders and arguments don't match up, or more than one
+     *                                  InList needs splitting
+     * @since 1.1.0
+     */
+    public List<SqlStatement> expand() {
+        if (!(hasInLists && parameterized)) {
+            return Collections.singletonList(this);
+        }
+        if (expanded == null) {
+            expanded = Collections.unmodifiableList(expandInLists());
+        }
+        return expanded;
+    }
+
+    /**
+     * Does this statement have to be executed as several statements to cover the values of an {@link InList}.
+     *
+     * @return true if the statement is split
+     * @see #expand()
+     * @since 1.1.0
+     */
+    public boolean isSplit() {
+        return expand().size() > 1;
+    }
+
+    private SqlStatement single() {
+        final List<SqlStatement> statements = expand();
+        if (statements.size() != 1) {
+            throw new IllegalStateException("Statement's IN list spans several statements, use expand().");
+        }
+        return statements.get(0);
+    }
+
+    private List<SqlStatement> expandInLists() {
+        final int[] placeholders = NamedSql.positional(sqlString).getPlaceholders();
+        if (placeholders.length != args.length) {
+            throw new IllegalArgumentException("Statement has " + placeholders.length + " placeholders but "
+                    + args.length + " arguments.");
+        }
+        InList split = null;
+        for (Object arg : args) {
+            if (arg instanceof InList && ((InList) arg).chunks() > 1) {
+                if (split != null) {
+                    throw new IllegalArgumentException("Only one IN list may span several statements.");
+                }
+                split = (InList) arg;
+            }
+        }
+        final int chunks = split == null ? 1 : split.chunks();
+        final List<SqlStatement> statements = new ArrayList<>(chunks);
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            final StringBuilder sql = new StringBuilder(sqlString.length() + 16);
+            final List<Object> flattened = new ArrayList<>();
+            int position = 0;
+            for (int i = 0; i < args.length; i++) {
+                sql.append(sqlString, position, placeholders[i]);
+                position = placeholders[i] + 1;
+                if (args[i] instanceof InList) {
+                    ((InList) args[i]).expand(args[i] == split ? chunk : 0, sql, flattened);
+                } else {
+                    sql.append('?');
+                    flattened.add(args[i]);
+                }
+            }
+            sql.append(sqlString, position, sqlString.length());
+            statements.add(new SqlStatement(sql.toString(), true, flattened.toArray()));
+        }
+        return statements;
+    }
+
+    /**
+     * A value identifying what this statement executes, equal for statements with equal SQL text and arguments.
+     *
+     * @return the key
+     */
+    List<Object> key() {
+        if (!parameterized) {
+            return Collections.singletonList(toString());
+        }
+        final int length = args == null ? 0 : args.length;
+        final List<Object> key = new ArrayList<>(length + 1);
+        key.add(sqlString);
+        for (int i = 0; i < length; i++) {
+            key.add(args[i] instanceof InList ? ((InList) args[i]).values() : args[i]);
+        }
+        return key;
+    }
+
+    /**
+     * Create a parameterized statement that embeds this one's SQL between a prefix and suffix, binding additional
+     * arguments after this one's. Statements that are not parameterized are embedded fully formatted.
+     *
+     * @param prefix the SQL before this statement's
+     * @param suffix the SQL after this statement's
+     * @param more   the arguments for placeholders in the suffix
+     * @return the wrapping statement
+     */
+    SqlStatement wrap(String prefix, String suffix, Object... more) {
+        if (!parameterized) {
+            return new SqlStatement(prefix + getSql() + suffix, true, more);
+        }
+        final int length = args == null ? 0 : args.length;
+        final Object[] combined = new Object[length + more.length];
+        if (length > 0) {
+            System.arraycopy(args, 0, combined, 0, length);
+        }
+        System.arraycopy(more, 0, combined, length, more.length);
+        return new SqlStatement(prefix + sqlString + suffix, true, combined);
+    }
+
+    /**
+     * Prepare this statement on a connection, binding any parameters.
+     *
+     * @param connection the connection to prepare the statement on
+     * @return a bound PreparedStatement
+     * @throws SQLException if the statement can not be prepared or bound
+     * @since 1.1.0
+     */
+    public PreparedStatement prepare(Connection connection) throws SQLException {
+        return bound(connection.prepareStatement(getSql()));
+    }
+
+    /**
+     * Prepare this statement on a connection, indicating the auto-generated keys to return, and binding any parameters.
+     *
+     * @param connection the connection to prepare the statement on
+     * @param keys       the names of the generated key columns
+     * @return a bound PreparedStatement
+     * @throws SQLException if the statement can not be prepared or bound
+     * @since 1.1.0
+     */
+    public PreparedStatement prepare(Connection connection, String[] keys) throws SQLException {
+        return bound(connection.prepareStatement(getSql(), keys));
+    }
+
+    private PreparedStatement bound(PreparedStatement statement) throws SQLException {
+        try {
+            bind(statement);
+        } catch (SQLException e) {
+            close(statement);
+            throw e;
+        }
+        return statement;
     }
 
     @Override
     public String toString() {
-        final String formatted = (args == null || args.length == 0) ? sqlString : String.format(sqlString, args);
-        Logger.debug("Formatted SQL: {}", formatted);
-        return formatted;
+        return isSplit() ? sqlString : getSql();
     }
 
     public static SqlStatement sql(String sql, Object... args) {
         return new SqlStatement(sql, args);
     }
+
+    /**
+     * Create a parameterized statement. The SQL should use JDBC '?' placeholders, and the arguments are bound,
+     * in order, to those parameters when the statement is executed. Because the SQL text doesn't vary with the
+     * arguments, the database can reuse its parse and plan for each execution.
+     *
+     * @param sql  the SQL with '?' placeholders
+     * @param args the arguments to bind
+     * @return a parameterized statement
+     * @since 1.1.0
+     */
+    public static SqlStatement prepared(String sql, Object... args) {
+        return new SqlStatement(sql, true, args);
+    }
+
+    /**
+     * Create a parameterized statement from SQL with named parameters, of the form :name, and a map of the
+     * values for those names. A name may appear more than once. The SQL is compiled to JDBC '?' placeholders
+     * once and cached, so each execution only orders the values into place.
+     *
+     * @param sql    the SQL with named parameters
+     * @param values the parameter values by name
+     * @return a parameterized statement
+     * @throws IllegalArgumentException if a named parameter has no value
+     * @since 1.1.0
+     */
+    public static SqlStatement named(String sql, Map<String, ?> values) {
+        final NamedSql namedSql = NamedSql.compile(sql);
+        final Object[] args = namedSql.arguments(values);
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] instanceof Collection) {
+                args[i] = in((Collection<?>) args[i]);
+            }
+        }
+        return new SqlStatement(namedSql.getSql(), true, args);
+    }
+
+    /**
+     * Wrap a collection as an argument to a parameterized statement that expands to fill an IN list, as in
+     * <code>prepared("SELECT * FROM T WHERE ID IN (?)", in(ids))</code>. With named parameters a collection
+     * value is treated this way automatically. Not suited to NOT IN, see {@link InList}.
+     *
+     * @param values the values
+     * @return an InList of the values
+     * @since 1.1.0
+     */
+    public static InList in(Collection<?> values) {
+        return new InList(values, InList.DEFAULT_MAX_BUCKET);
+    }
+
+    /**
+     * Wrap a collection as an IN list argument, with a given maximum number of placeholders per statement.
+     *
+     * @param values    the values
+     * @param maxBucket the maximum placeholders per statement
+     * @return an InList of the values
+     * @since 1.1.0
+     */
+    public static InList in(Collection<?> values, int maxBucket) {
+        return new InList(values, maxBucket);
+    }
 }
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc;
+
+import org.pmw.tinylog.Level;
+import org.pmw.tinylog.Logger;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Formattable;
+import java.util.Formatter;
+import java.util.List;
+import java.util.MissingFormatArgumentException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link java.util.Formatter} style SQL template that is parsed once, into literal and argument slot segments,
+ * and can then be rendered repeatedly with different arguments. Plain %s and %d slots are rendered directly into a
+ * reused per thread buffer, other format specifiers fall back to a Formatter for just that slot. A template is
+ * immutable, and so can be shared across threads, each execution supplying its own arguments.
+ *
+ * @since 1.1.0
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class SqlTemplate {
+    private static final Pattern SPECIFIER = Pattern.compile("%(\\d+\\$)?([-#+ 0,(<]*)?(\\d+)?(\\.\\d+)?([tT])?([a-zA-Z%])");
+    private static final int CACHE_LIMIT = 1024;
+    private static final int BUFFER_LIMIT = 8192;
+    private static final Map<String, SqlTemplate> CACHE = new ConcurrentHashMap<>();
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(StringBuilder::new);
+    private final String format;
+    private final Segment[] segments;
+
+    private SqlTemplate(String format) {
+        this.format = format;
+        this.segments = parse(format);
+    }
+
+    /**
+     * Get the template for a format string. Templates are cached, so repeated calls with the same format
+     * only parse it once.
+     *
+     * @param format the {@link java.util.Formatter} format string
+     * @return the template
+     */
+    public static SqlTemplate template(String format) {
+        final SqlTemplate cached = CACHE.get(format);
+        if (cached != null) {
+            return cached;
+        }
+        final SqlTemplate template = new SqlTemplate(format);
+        if (CACHE.size() < CACHE_LIMIT) {
+            CACHE.putIfAbsent(format, template);
+        }
+        return template;
+    }
+
+    /**
+     * Create a SqlStatement that renders this template with the given arguments.
+     *
+     * @param args the arguments for this execution
+     * @return a SqlStatement
+     */
+    public SqlStatement with(Object... args) {
+        return new SqlStatement(this, args);
+    }
+
+    /**
+     * Render the template with a set of arguments. As with {@link SqlStatement}, with no arguments the
+     * format is returned unchanged.
+     *
+     * @param args the arguments
+     * @return the rendered SQL
+     */
+    public String render(Object... args) {
+        final String rendered;
+        if (args == null || args.length == 0) {
+            rendered = format;
+        } else if (segments == null) {
+            rendered = String.format(format, args);
+        } else {
+            final StringBuilder buffer = BUFFER.get();
+            buffer.setLength(0);
+            for (Segment segment : segments) {
+                segment.append(buffer, args);
+            }
+            rendered = buffer.toString();
+            if (buffer.capacity() > BUFFER_LIMIT) {
+                BUFFER.remove();
+            }
+        }
+        debug(rendered);
+        return rendered;
+    }
+
+    @Override
+    public String toString() {
+        return format;
+    }
+
+    static void debug(String sql) {
+        if (Logger.getLevel(SqlTemplate.class).ordinal() <= Level.DEBUG.ordinal()) {
+            Logger.debug("Formatted SQL: {}", sql);
+        }
+    }
+
+    /*
+     * Parse the format into segments, returning null if the format contains anything unexpected so that
+     * rendering falls back to String.format, and it reports the problem.
+     */
+    @SuppressWarnings("PMD.ReturnEmptyArrayRatherThanNull")
+    private static Segment[] parse(String format) {
+        final List<Segment> segments = new ArrayList<>();
+        final Matcher matcher = SPECIFIER.matcher(format);
+        final StringBuilder literal = new StringBuilder();
+        int position = 0;
+        int ordinary = 0;
+        int last = -1;
+        while (matcher.find()) {
+            if (format.indexOf('%', position) != matcher.start()) {
+                return null;
+            }
+            literal.append(format, position, matcher.start());
+            position = matcher.end();
+            final String flags = matcher.group(2) == null ? "" : matcher.group(2);
+            final char conversion = matcher.group(6).charAt(0);
+            if (conversion == '%' && matcher.group(5) == null) {
+                literal.append('%');
+                continue;
+            }
+            if (conversion == 'n' && matcher.group(5) == null) {
+                literal.append(System.lineSeparator());
+                continue;
+            }
+            final int index;
+            if (flags.indexOf('<') >= 0) {
+                if (last < 0) {
+                    return null;
+                }
+                index = last;
+            } else if (matcher.group(1) != null) {
+                index = Integer.parseInt(matcher.group(1).substring(0, matcher.group(1).length() - 1)) - 1;
+                if (index < 0) {
+                    return null;
+                }
+            } else {
+                index = ordinary++;
+            }
+            last = index;
+            if (literal.length() > 0) {
+                segments.add(new Literal(literal.toString()));
+                literal.setLength(0);
+            }
+            final String spec = '%' + flags.replace("<", "")
+                    + (matcher.group(3) == null ? "" : matcher.group(3))
+                    + (matcher.group(4) == null ? "" : matcher.group(4))
+                    + (matcher.group(5) == null ? "" : matcher.group(5))
+                    + conversion;
+            if (spec.length() == 2 && (conversion == 's' || conversion == 'd')) {
+                segments.add(new Simple(index, conversion, spec));
+            } else {
+                segments.add(new Formatted(index, spec));
+            }
+        }
+        if (format.indexOf('%', position) >= 0) {
+            return null;
+        }
+        literal.append(format, position, format.length());
+        if (literal.length() > 0) {
+            segments.add(new Literal(literal.toString()));
+        }
+        return segments.toArray(new Segment[0]);
+    }
+
+    private abstract static class Segment {
+        abstract void append(StringBuilder buffer, Object... args);
+    }
+
+    private static final class Literal extends Segment {
+        private final String text;
+
+        Literal(String text) {
+            this.text = text;
+        }
+
+        @Override
+        void append(StringBuilder buffer, Object... args) {
+            buffer.append(text);
+        }
+    }
+
+    private static class Formatted extends Segment {
+        final int index;
+        final String spec;
+
+        Formatted(int index, String spec) {
+            this.index = index;
+            this.spec = spec;
+        }
+
+        final Object arg(Object... args) {
+            if (index >= args.length) {
+                throw new MissingFormatArgumentException(spec);
+            }
+            return args[index];
+        }
+
+        @Override
+        void append(StringBuilder buffer, Object... args) {
+            new Formatter(buffer).format(spec, arg(args));
+        }
+    }
+
+    private static final class Simple extends Formatted {
+        private final char conversion;
+
+        Simple(int index, char conversion, String spec) {
+            super(index, spec);
+            this.conversion = conversion;
+        }
+
+        @Override
+        void append(StringBuilder buffer, Object... args) {
+            final Object arg = arg(args);
+            if (arg == null) {
+                buffer.append("null");
+            } else if (conversion == 's' && !(arg instanceof Formattable)) {
+                buffer.append(arg);
+            } else if (conversion == 'd' && (arg instanceof Integer || arg instanceof Short || arg instanceof Byte)) {
+                buffer.append(((Number) arg).intValue());
+            } else if (conversion == 'd' && arg instanceof Long) {
+                buffer.append(((Long) arg).longValue());
+            } else if (conversion == 'd' && arg instanceof BigInteger) {
+                buffer.append(arg);
+            } else {
+                super.append(buffer, args);
+            }
+        }
+    }
+}
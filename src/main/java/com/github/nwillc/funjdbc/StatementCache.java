@@ -0,0 +1,339 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc;
+
+import com.github.nwillc.funjdbc.utils.Closer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.github.nwillc.funjdbc.utils.Closer.close;
+
+/**
+ * A cache of PreparedStatements, keyed by connection, SQL text and {@link QueryOptions}. Statements are checked out of the cache by
+ * {@link #prepare(Connection, SqlStatement)} and returned to it by {@link #release(Statement)}, rather than
+ * being closed, so that a later execution of the same SQL on the same connection can reuse them. Each connection
+ * holds at most capacity idle statements, the least recently used being closed when that's exceeded. Statements
+ * that the cache did not prepare are simply closed on release. A capacity of zero disables caching, see {@link #NONE}.
+ * <p>
+ * Statements are held against the physical connection, found with {@link Connection#unwrap(Class)}, so that the
+ * wrappers pools and test harnesses hand out on each checkout share the statements of the connection they wrap.
+ *
+ * @since 1.1.0
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class StatementCache {
+    /**
+     * A cache that caches nothing, each prepare creates a new statement and each release closes it.
+     */
+    public static final StatementCache NONE = new StatementCache(0);
+    private final int capacity;
+    private final Map<Connection, Map<Key, PreparedStatement>> idle = new IdentityHashMap<>();
+    private final Map<Statement, CheckedOut> checkedOut = new IdentityHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Create a cache holding up to capacity idle statements per connection.
+     *
+     * @param capacity the maximum idle statements per connection
+     */
+    public StatementCache(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative.");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Get a PreparedStatement for a SqlStatement on a connection, reusing a cached one if available, and bind
+     * its parameters.
+     *
+     * @param connection   the connection
+     * @param sqlStatement the SQL statement
+     * @return a bound PreparedStatement, which should be passed to {@link #release(Statement)} when done
+     * @throws SQLException if the statement can not be prepared or bound
+     */
+    public PreparedStatement prepare(Connection connection, SqlStatement sqlStatement) throws SQLException {
+        return prepare(connection, sqlStatement, QueryOptions.DEFAULT);
+    }
+
+    /**
+     * Get a PreparedStatement with given options for a SqlStatement on a connection, reusing a cached one prepared
+     * with equal options if available, and bind its parameters.
+     *
+     * @param connection   the connection
+     * @param sqlStatement the SQL statement
+     * @param options      the query options
+     * @return a bound PreparedStatement, which should be passed to {@link #release(Statement)} when done
+     * @throws SQLException if the statement can not be prepared or bound
+     */
+    @SuppressWarnings("PMD.CloseResource")
+    public PreparedStatement prepare(Connection connection, SqlStatement sqlStatement, QueryOptions options)
+            throws SQLException {
+        final PreparedStatement statement = prepare(connection, sqlStatement.getSql(), options);
+        try {
+            sqlStatement.bind(statement);
+        } catch (SQLException e) {
+            release(statement);
+            throw e;
+        }
+        return statement;
+    }
+
+    /**
+     * Get a PreparedStatement for SQL text on a connection, reusing a cached one if available.
+     *
+     * @param connection the connection
+     * @param sql        the SQL text
+     * @return a PreparedStatement, which should be passed to {@link #release(Statement)} when done
+     * @throws SQLException if the statement can not be prepared
+     */
+    public PreparedStatement prepare(Connection connection, String sql) throws SQLException {
+        return prepare(connection, sql, QueryOptions.DEFAULT);
+    }
+
+    /**
+     * Get a PreparedStatement with given options for SQL text on a connection, reusing a cached one prepared with
+     * equal options if available.
+     *
+     * @param connection the connection
+     * @param sql        the SQL text
+     * @param options    the query options
+     * @return a PreparedStatement, which should be passed to {@link #release(Statement)} when done
+     * @throws SQLException if the statement can not be prepared
+     */
+    @SuppressWarnings("PMD.CloseResource")
+    public PreparedStatement prepare(Connection connection, String sql, QueryOptions options) throws SQLException {
+        if (capacity == 0) {
+            return options.prepare(connection, sql);
+        }
+        final Connection physical = physical(connection);
+        final Key key = new Key(sql, options);
+        PreparedStatement statement;
+        synchronized (this) {
+            final Map<Key, PreparedStatement> statements = idle.get(physical);
+            statement = statements == null ? null : statements.remove(key);
+        }
+        if (statement != null && statement.isClosed()) {
+            statement = null;
+        }
+        if (statement == null) {
+            misses.incrementAndGet();
+            statement = options.prepare(connection, sql);
+        } else {
+            hits.incrementAndGet();
+        }
+        synchronized (this) {
+            checkedOut.put(statement, new CheckedOut(physical, key));
+        }
+        return statement;
+    }
+
+    /**
+     * Release a statement. If this cache prepared it, and its connection is still open, it is returned to the cache,
+     * otherwise it is closed.
+     *
+     * @param statement the statement, may be null
+     */
+    @SuppressWarnings("PMD.CloseResource")
+    public void release(Statement statement) {
+        final CheckedOut checked;
+        synchronized (this) {
+            checked = statement == null ? null : checkedOut.remove(statement);
+        }
+        if (checked == null) {
+            close(statement);
+            return;
+        }
+        final PreparedStatement preparedStatement = (PreparedStatement) statement;
+        try {
+            if (preparedStatement.isClosed() || checked.connection.isClosed()) {
+                close(preparedStatement);
+                return;
+            }
+            preparedStatement.clearParameters();
+            preparedStatement.clearBatch();
+        } catch (SQLException e) {
+            close(preparedStatement);
+            return;
+        }
+        final PreparedStatement displaced;
+        synchronized (this) {
+            Map<Key, PreparedStatement> statements = idle.get(checked.connection);
+            if (statements == null) {
+                purgeClosed();
+                statements = new Lru();
+                idle.put(checked.connection, statements);
+            }
+            displaced = statements.put(checked.key, preparedStatement);
+        }
+        close(displaced);
+    }
+
+    /**
+     * Close all idle statements held by the cache.
+     */
+    public void clear() {
+        synchronized (this) {
+            idle.values().forEach(statements -> statements.values().forEach(Closer::close));
+            idle.clear();
+        }
+    }
+
+    /**
+     * Close the idle statements held for a given connection.
+     *
+     * @param connection the connection
+     */
+    public void clear(Connection connection) {
+        synchronized (this) {
+            final Map<Key, PreparedStatement> statements = idle.remove(physical(connection));
+            if (statements != null) {
+                statements.values().forEach(Closer::close);
+            }
+        }
+    }
+
+    /**
+     * The number of idle statements currently held in the cache.
+     *
+     * @return the count of idle statements
+     */
+    public synchronized int size() {
+        return idle.values().stream().mapToInt(Map::size).sum();
+    }
+
+    /**
+     * The number of prepares satisfied from the cache.
+     *
+     * @return hit count
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * The number of prepares that required a new statement.
+     *
+     * @return miss count
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * The number of idle statements closed to keep within capacity.
+     *
+     * @return eviction count
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    private static Connection physical(Connection connection) {
+        try {
+            final Connection unwrapped = connection.unwrap(Connection.class);
+            return unwrapped == null ? connection : unwrapped;
+        } catch (SQLException | RuntimeException e) {
+            return connection;
+        }
+    }
+
+    private void purgeClosed() {
+        final Iterator<Map.Entry<Connection, Map<Key, PreparedStatement>>> iterator = idle.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<Connection, Map<Key, PreparedStatement>> entry = iterator.next();
+            boolean closed;
+            try {
+                closed = entry.getKey().isClosed();
+            } catch (SQLException e) {
+                closed = true;
+            }
+            if (closed) {
+                entry.getValue().values().forEach(Closer::close);
+                iterator.remove();
+            }
+        }
+    }
+
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    private static final class CheckedOut {
+        final Connection connection;
+        final Key key;
+
+        CheckedOut(Connection connection, Key key) {
+            this.connection = connection;
+            this.key = key;
+        }
+    }
+
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    private static final class Key {
+        final String sql;
+        final QueryOptions options;
+
+        Key(String sql, QueryOptions options) {
+            this.sql = sql;
+            this.options = options;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key that = (Key) o;
+            return sql.equals(that.sql) && options.equals(that.options);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * sql.hashCode() + options.hashCode();
+        }
+    }
+
+    private final class Lru extends LinkedHashMap<Key, PreparedStatement> {
+        static final long serialVersionUID = 1L;
+
+        Lru() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, PreparedStatement> eldest) {
+            if (size() > capacity) {
+                evictions.incrementAndGet();
+                close(eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc.functions;
+
+import com.github.nwillc.funjdbc.utils.Parameters;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * A functional interface designed to bind a given type to the parameters of a PreparedStatement, the write
+ * side counterpart of an {@link Extractor}.
+ *
+ * @param <T> type to bind
+ * @since 1.1.0
+ */
+@FunctionalInterface
+public interface Binder<T> {
+    /**
+     * Bind type T to the parameters of the PreparedStatement.
+     *
+     * @param statement the PreparedStatement to bind to
+     * @param item      the item to bind
+     * @throws SQLException should the binding fail
+     */
+    void bind(PreparedStatement statement, T item) throws SQLException;
+
+    /**
+     * Bind type T to the parameters of the PreparedStatement, shifting each parameter index by an offset,
+     * so that several items can be bound to one statement, as in a multi-row insert. By default this binds to a
+     * view of the statement that shifts the indexes, a reflective proxy that costs a reflective call per parameter
+     * set. Binders used for bulk inserts should override it to apply the offset directly, as those built by
+     * {@link com.github.nwillc.funjdbc.utils.BFactory} do.
+     *
+     * @param statement the PreparedStatement to bind to
+     * @param offset    the amount to add to each parameter index
+     * @param item      the item to bind
+     * @throws SQLException should the binding fail
+     */
+    default void bind(PreparedStatement statement, int offset, T item) throws SQLException {
+        bind(offset == 0 ? statement : Parameters.offset(statement, offset), item);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc.functions;
+
+/**
+ * Interfaces for demand driven publication of elements, mirroring those of java.util.concurrent.Flow, which is
+ * unavailable on Java 8. Implementations follow the same Reactive Streams rules, so adapting to the JDK or other
+ * Reactive Streams types is a matter of delegation.
+ *
+ * @since 1.1.0
+ */
+public final class Flow {
+    private Flow() {
+    }
+
+    /**
+     * A producer of elements received by Subscribers.
+     *
+     * @param <T> the published element type
+     */
+    @FunctionalInterface
+    public interface Publisher<T> {
+        /**
+         * Add a Subscriber, which is sent onSubscribe with a new Subscription.
+         *
+         * @param subscriber the subscriber
+         */
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    /**
+     * A receiver of elements.
+     *
+     * @param <T> the subscribed element type
+     */
+    public interface Subscriber<T> {
+        /**
+         * Invoked before any other method, with the Subscription through which elements are requested.
+         *
+         * @param subscription the subscription
+         */
+        void onSubscribe(Subscription subscription);
+
+        /**
+         * Invoked with the next element, only as requested.
+         *
+         * @param item the element
+         */
+        void onNext(T item);
+
+        /**
+         * Invoked when the Subscription fails, no further methods are invoked.
+         *
+         * @param throwable the failure
+         */
+        void onError(Throwable throwable);
+
+        /**
+         * Invoked when there are no more elements, no further methods are invoked.
+         */
+        void onComplete();
+    }
+
+    /**
+     * The link between a Publisher and a Subscriber.
+     */
+    public interface Subscription {
+        /**
+         * Request up to n more elements.
+         *
+         * @param n the number of elements, must be positive
+         */
+        void request(long n);
+
+        /**
+         * Stop receiving elements, releasing the Subscription's resources.
+         */
+        void cancel();
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc.functions;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * A functional interface for setting a PreparedStatement parameter, matching the signatures of its setters,
+ * for example <code>PreparedStatement::setString</code>. Primitive specializations avoid boxing.
+ *
+ * @param <T> the parameter type
+ * @since 1.1.0
+ */
+@FunctionalInterface
+public interface ParameterSetter<T> {
+    /**
+     * Set a parameter.
+     *
+     * @param statement the statement
+     * @param index     the parameter index, starting at 1
+     * @param value     the value
+     * @throws SQLException if the parameter can not be set
+     */
+    void set(PreparedStatement statement, int index, T value) throws SQLException;
+
+    /**
+     * An int parameter setter, for example <code>PreparedStatement::setInt</code>.
+     */
+    @FunctionalInterface
+    interface OfInt {
+        void set(PreparedStatement statement, int index, int value) throws SQLException;
+    }
+
+    /**
+     * A long parameter setter, for example <code>PreparedStatement::setLong</code>.
+     */
+    @FunctionalInterface
+    interface OfLong {
+        void set(PreparedStatement statement, int index, long value) throws SQLException;
+    }
+
+    /**
+     * A double parameter setter, for example <code>PreparedStatement::setDouble</code>.
+     */
+    @FunctionalInterface
+    interface OfDouble {
+        void set(PreparedStatement statement, int index, double value) throws SQLException;
+    }
+
+    /**
+     * A boolean parameter setter, for example <code>PreparedStatement::setBoolean</code>.
+     */
+    @FunctionalInterface
+    interface OfBoolean {
+        void set(PreparedStatement statement, int index, boolean value) throws SQLException;
+    }
+}
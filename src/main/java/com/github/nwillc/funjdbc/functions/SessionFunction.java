@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc.functions;
+
+import com.github.nwillc.funjdbc.DbAccessor;
+
+import java.sql.SQLException;
+
+/**
+ * A unit of database work performed with a {@link DbAccessor} bound to a single connection, as used by
+ * {@link DbAccessor#dbSession(SessionFunction)} and {@link DbAccessor#dbTransaction(SessionFunction)}.
+ *
+ * @param <R> the type of the result
+ * @since 1.1.0
+ */
+@FunctionalInterface
+public interface SessionFunction<R> {
+    /**
+     * Perform the work.
+     *
+     * @param session the accessor bound to the session's connection
+     * @return the result of the work
+     * @throws SQLException should the work fail
+     */
+    R apply(DbAccessor session) throws SQLException;
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc.utils;
+
+import com.github.nwillc.funjdbc.functions.Binder;
+import com.github.nwillc.funjdbc.functions.ParameterSetter;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Create a Binder from a series of getter/setter/index tuples, the write side counterpart of {@link EFactory}.
+ * The primitive variants pass values from bean getter to statement setter without boxing. The resultant
+ * Binder is a flat loop over the bindings added, and applies parameter index offsets directly.
+ *
+ * @param <B> the type of the Bean
+ * @since 1.1.0
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class BFactory<B> {
+    private final List<Step<B>> bindings = new ArrayList<>();
+
+    /**
+     * Add a binding. A binding gets a value from the bean and sets it as an indexed parameter.
+     *
+     * @param getter a Function to get the value from the bean
+     * @param setter the PreparedStatement setter for the value, for example PreparedStatement::setString
+     * @param index  the parameter index
+     * @param <T>    the type
+     * @return the factory
+     */
+    public <T> BFactory<B> add(Function<B, T> getter, ParameterSetter<T> setter, int index) {
+        Objects.requireNonNull(getter);
+        Objects.requireNonNull(setter);
+        bindings.add((s, o, b) -> setter.set(s, o + index, getter.apply(b)));
+        return this;
+    }
+
+    /**
+     * Add an int binding.
+     *
+     * @param getter a Function to get the value from the bean
+     * @param setter the PreparedStatement setter for the value, for example PreparedStatement::setInt
+     * @param index  the parameter index
+     * @return the factory
+     */
+    public BFactory<B> addInt(ToIntFunction<B> getter, ParameterSetter.OfInt setter, int index) {
+        Objects.requireNonNull(getter);
+        Objects.requireNonNull(setter);
+        bindings.add((s, o, b) -> setter.set(s, o + index, getter.applyAsInt(b)));
+        return this;
+    }
+
+    /**
+     * Add a long binding.
+     *
+     * @param getter a Function to get the value from the bean
+     * @param setter the PreparedStatement setter for the value, for example PreparedStatement::setLong
+     * @param index  the parameter index
+     * @return the factory
+     */
+    public BFactory<B> addLong(ToLongFunction<B> getter, ParameterSetter.OfLong setter, int index) {
+        Objects.requireNonNull(getter);
+        Objects.requireNonNull(setter);
+        bindings.add((s, o, b) -> setter.set(s, o + index, getter.applyAsLong(b)));
+        return this;
+    }
+
+    /**
+     * Add a double binding.
+     *
+     * @param getter a Function to get the value from the bean
+     * @param setter the PreparedStatement setter for the value, for example PreparedStatement::setDouble
+     * @param index  the parameter index
+     * @return the factory
+     */
+    public BFactory<B> addDouble(ToDoubleFunction<B> getter, ParameterSetter.OfDouble setter, int index) {
+        Objects.requireNonNull(getter);
+        Objects.requireNonNull(setter);
+        bindings.add((s, o, b) -> setter.set(s, o + index, getter.applyAsDouble(b)));
+        return this;
+    }
+
+    /**
+     * Add a boolean binding.
+     *
+     * @param getter a Predicate to get the value from the bean
+     * @param setter the PreparedStatement setter for the value, for example PreparedStatement::setBoolean
+     * @param index  the parameter index
+     * @return the factory
+     */
+    public BFactory<B> addBoolean(Predicate<B> getter, ParameterSetter.OfBoolean setter, int index) {
+        Objects.requireNonNull(getter);
+        Objects.requireNonNull(setter);
+        bindings.add((s, o, b) -> setter.set(s, o + index, getter.test(b)));
+        return this;
+    }
+
+    /**
+     * Create the Binder based on the bindings added.
+     *
+     * @return the generated binder
+     */
+    public Binder<B> getBinder() {
+        if (bindings.isEmpty()) {
+            throw new IllegalStateException("Binding(s) are required");
+        }
+        @SuppressWarnings({"unchecked", "rawtypes"}) final Step<B>[] steps = bindings.toArray(new Step[0]);
+        return new GeneratedBinder<>(steps);
+    }
+
+    @FunctionalInterface
+    private interface Step<B> {
+        void bind(PreparedStatement statement, int offset, B item) throws SQLException;
+    }
+
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    private static final class GeneratedBinder<B> implements Binder<B> {
+        private final Step<B>[] steps;
+
+        GeneratedBinder(Step<B>[] steps) {
+            this.steps = steps;
+        }
+
+        @Override
+        public void bind(PreparedStatement statement, B item) throws SQLException {
+            bind(statement, 0, item);
+        }
+
+        @Override
+        public void bind(PreparedStatement statement, int offset, B item) throws SQLException {
+            for (Step<B> step : steps) {
+                step.bind(statement, offset, item);
+            }
+        }
+    }
+}
@@ -21,23 +21,62 @@ import com.github.nwillc.funjdbc.functions.Enricher;
 import com.github.nwillc.funjdbc.functions.Extractor;
 import com.github.nwillc.funjdbc.functions.ThrowingBiFunction;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.WeakReference;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.WeakHashMap;
 import java.util.function.BiConsumer;
-import java.util.function.BiFunction;
 import java.util.function.Supplier;
 
+import static com.github.nwillc.funjdbc.utils.Throwables.propagate;
+
 /**
- * Create a basic Enricher or Extractor from a series of setter/getter/index tuples.
+ * Create a basic Enricher or Extractor from a series of setter/getter/index tuples. The resultant Enricher or
+ * Extractor invokes a single method handle, composed from the getter and setter of each extraction added in turn,
+ * with a single exception handler around it, rather than a chain of enrichers each wrapping its own exceptions.
+ * Columns added by name with
+ * {@link #addByName(BiConsumer, ThrowingBiFunction, String)} are resolved to indexes once per ResultSet.
  *
  * @param <B> the type of the Bean
  * @since 0.8.3+
  */
 @SuppressWarnings("PMD.BeanMembersShouldSerialize")
 public final class EFactory<B> {
-    private Enricher<B> consumer = null;
+    private static final MethodHandle APPLY;
+    private static final MethodHandle ACCEPT;
+    private static final MethodHandle NOOP;
+    private static final MethodHandle COLUMN;
+    private final List<MethodHandle> extractions = new ArrayList<>();
+    private final List<String> names = new ArrayList<>();
     private Supplier<B> factory = null;
 
+    static {
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            APPLY = lookup.findVirtual(ThrowingBiFunction.class, "applyThrows",
+                    MethodType.methodType(Object.class, Object.class, Object.class));
+            ACCEPT = lookup.findVirtual(BiConsumer.class, "accept",
+                    MethodType.methodType(void.class, Object.class, Object.class));
+            NOOP = MethodHandles.dropArguments(
+                    lookup.findStatic(EFactory.class, "noop", MethodType.methodType(void.class)),
+                    0, Object.class, ResultSet.class, Integer[].class);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+        COLUMN = MethodHandles.arrayElementGetter(Integer[].class)
+                .asType(MethodType.methodType(Object.class, Integer[].class, int.class));
+    }
+
     /**
      * Provide a factor this Extractor will use to create the object it will extract data
      * from the result set into.
@@ -64,8 +103,8 @@ public final class EFactory<B> {
         Objects.requireNonNull(setter);
         Objects.requireNonNull(getter);
         Objects.requireNonNull(index);
-        final SingleEnricher<B, T, Integer> singleEnricher = new SingleEnricher<>(setter, getter, index);
-        consumer = (consumer == null) ? singleEnricher : consumer.andThen(singleEnricher);
+        extractions.add(extraction(setter, MethodHandles.dropArguments(
+                MethodHandles.insertArguments(APPLY.bindTo(getter), 1, index), 1, Integer[].class)));
         return this;
     }
 
@@ -83,8 +122,32 @@ public final class EFactory<B> {
         Objects.requireNonNull(setter);
         Objects.requireNonNull(getter);
         Objects.requireNonNull(column);
-        final SingleEnricher<B, T, String> singleEnricher = new SingleEnricher<>(setter, getter, column);
-        consumer = (consumer == null) ? singleEnricher : consumer.andThen(singleEnricher);
+        extractions.add(extraction(setter, MethodHandles.dropArguments(
+                MethodHandles.insertArguments(APPLY.bindTo(getter), 1, column), 1, Integer[].class)));
+        return this;
+    }
+
+    /**
+     * Add an extraction used by the Extractor, pulling a know type from a named column of the ResultSet with an
+     * indexed getter. The name is resolved to an index, case insensitively, from the ResultSet's metadata, or with
+     * {@link ResultSet#findColumn(String)} failing that, once per ResultSet rather than by the driver on every row.
+     *
+     * @param setter a BiConsumer that will set the value extracted
+     * @param getter a BiFunction that will extract the value from the ResultSet by index
+     * @param column the name of the column
+     * @param <T>    the type
+     * @return the factory
+     * @since 1.1.0
+     */
+    public <T> EFactory<B> addByName(BiConsumer<B, T> setter, ThrowingBiFunction<ResultSet, Integer, T> getter,
+                                     String column) {
+        Objects.requireNonNull(setter);
+        Objects.requireNonNull(getter);
+        Objects.requireNonNull(column);
+        final int slot = names.size();
+        names.add(column);
+        extractions.add(extraction(setter, MethodHandles.filterArguments(APPLY.bindTo(getter), 1,
+                MethodHandles.insertArguments(COLUMN, 1, slot))));
         return this;
     }
 
@@ -95,8 +158,7 @@ public final class EFactory<B> {
      * @since 0.8.7
      */
     public Enricher<B> getEnricher() {
-        Objects.requireNonNull(consumer, "A consumer(s) are required");
-        return consumer;
+        return new GeneratedEnricher<>(plan());
     }
 
     /**
@@ -106,44 +168,139 @@ public final class EFactory<B> {
      */
     public Extractor<B> getExtractor() {
         Objects.requireNonNull(factory, "A non null factory is required");
-        Objects.requireNonNull(consumer, "A consumer(s) are required");
-        return new GeneratedExtractor<>(factory, consumer);
+        return new GeneratedExtractor<>(factory, plan());
+    }
+
+    private Plan<B> plan() {
+        if (extractions.isEmpty()) {
+            throw new NullPointerException("A consumer(s) are required");
+        }
+        MethodHandle body = NOOP;
+        for (int i = extractions.size() - 1; i >= 0; i--) {
+            body = MethodHandles.foldArguments(body, extractions.get(i));
+        }
+        return new Plan<>(body, names.toArray(new String[0]));
+    }
+
+    /**
+     * An extraction's handle, of type (Object bean, ResultSet rs, Integer[] columns) void, passing the value of a
+     * getter handle, of type (Object rs, Integer[] columns) Object, to the setter.
+     */
+    private static MethodHandle extraction(BiConsumer<?, ?> setter, MethodHandle getter) {
+        return MethodHandles.collectArguments(ACCEPT.bindTo(setter), 1, getter)
+                .asType(MethodType.methodType(void.class, Object.class, ResultSet.class, Integer[].class));
+    }
+
+    private static void noop() {
+        // the end of the composed extractions
+    }
+
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    private final static class Plan<B> {
+        private final MethodHandle body;
+        private final String[] names;
+        private final Map<ResultSet, Integer[]> resolutions = new WeakHashMap<>();
+        private volatile Columns columns;
+
+        Plan(MethodHandle body, String[] names) {
+            this.body = body;
+            this.names = names;
+        }
+
+        @SuppressWarnings("PMD.AvoidCatchingThrowable")
+        void apply(B bean, ResultSet rs) {
+            try {
+                final Integer[] indexes = names.length == 0 ? null : columns(rs);
+                body.invokeExact((Object) bean, rs, indexes);
+            } catch (Exception e) {
+                throw propagate(e);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        }
+
+        private Integer[] columns(ResultSet rs) throws SQLException {
+            Columns resolved = columns;
+            if (resolved == null || resolved.get() != rs) {
+                Integer[] indexes;
+                synchronized (resolutions) {
+                    indexes = resolutions.get(rs);
+                    if (indexes == null) {
+                        indexes = resolve(rs);
+                        resolutions.put(rs, indexes);
+                    }
+                }
+                resolved = new Columns(rs, indexes);
+                columns = resolved;
+            }
+            return resolved.indexes;
+        }
+
+        private Integer[] resolve(ResultSet rs) throws SQLException {
+            final Map<String, Integer> labels = new HashMap<>();
+            final ResultSetMetaData metaData = rs.getMetaData();
+            final int count = metaData == null ? 0 : metaData.getColumnCount();
+            for (int i = count; i > 0; i--) {
+                final String label = metaData.getColumnLabel(i);
+                if (label != null) {
+                    labels.put(label.toUpperCase(Locale.ROOT), i);
+                }
+            }
+            final Integer[] indexes = new Integer[names.length];
+            for (int i = 0; i < names.length; i++) {
+                final Integer index = labels.get(names[i].toUpperCase(Locale.ROOT));
+                indexes[i] = index == null ? rs.findColumn(names[i]) : index;
+            }
+            return indexes;
+        }
+    }
+
+    /**
+     * The column indexes resolved for the ResultSet last extracted from, held weakly so a cached resolution doesn't
+     * retain it. Rows from the same ResultSet use it without locking, while interleaved ResultSets, such as
+     * partitions of a parallel query, fall back to the plan's weak map of resolutions rather than resolving again.
+     */
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    private final static class Columns extends WeakReference<ResultSet> {
+        private final Integer[] indexes;
+
+        Columns(ResultSet rs, Integer[] indexes) {
+            super(rs);
+            this.indexes = indexes;
+        }
     }
 
     @SuppressWarnings("PMD.BeanMembersShouldSerialize")
     private final static class GeneratedExtractor<B> implements Extractor<B> {
         private final Supplier<B> factory;
-        private final BiConsumer<B, ResultSet> consumer;
+        private final Plan<B> plan;
 
-        GeneratedExtractor(Supplier<B> factory, BiConsumer<B, ResultSet> consumer) {
+        GeneratedExtractor(Supplier<B> factory, Plan<B> plan) {
             this.factory = factory;
-            this.consumer = consumer;
+            this.plan = plan;
         }
 
         @Override
         public B extract(ResultSet rs) {
             final B bean = factory.get();
-            consumer.accept(bean, rs);
+            plan.apply(bean, rs);
             return bean;
         }
     }
 
     @SuppressWarnings("PMD.BeanMembersShouldSerialize")
-    private final static class SingleEnricher<B, T, C> implements Enricher<B> {
-        final BiConsumer<B, T> setter;
-        final BiFunction<ResultSet, C, T> getter;
-        final C column;
-
-        SingleEnricher(BiConsumer<B, T> setter, BiFunction<ResultSet, C, T> getter, C column) {
-            this.setter = setter;
-            this.getter = getter;
-            this.column = column;
+    private final static class GeneratedEnricher<B> implements Enricher<B> {
+        private final Plan<B> plan;
+
+        GeneratedEnricher(Plan<B> plan) {
+            this.plan = plan;
         }
 
         @Override
-        public void acceptThrows(B bean, ResultSet resultSet) {
-            setter.accept(bean, getter.apply(resultSet, column));
+        public void acceptThrows(B bean, ResultSet rs) {
+            plan.apply(bean, rs);
         }
     }
-
 }
@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc.utils;
+
+import java.util.Arrays;
+
+/**
+ * A map from primitive int keys to objects, using open addressing with linear probing so that neither
+ * lookups nor updates of existing keys box or allocate. Not thread safe, although concurrent reads without
+ * writes are safe.
+ *
+ * @param <V> the value type
+ * @since 1.1.0
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class IntObjectMap<V> {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int FREE = 0;
+    private int[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+    private boolean hasFreeKey;
+    private V freeValue;
+
+    /**
+     * Create an empty map.
+     */
+    public IntObjectMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create an empty map sized to hold a number of entries without resizing.
+     *
+     * @param expected the number of entries expected
+     */
+    public IntObjectMap(int expected) {
+        if (expected < 0) {
+            throw new IllegalArgumentException("Expected size must not be negative.");
+        }
+        allocate(tableSize(expected));
+    }
+
+    /**
+     * Get the value for a key.
+     *
+     * @param key the key
+     * @return the value, or null if the key is absent
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        if (key == FREE) {
+            return freeValue;
+        }
+        int slot = slot(key);
+        int k;
+        while ((k = keys[slot]) != FREE) {
+            if (k == key) {
+                return (V) values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Test if the map contains a key.
+     *
+     * @param key the key
+     * @return true if the key is present
+     */
+    public boolean containsKey(int key) {
+        if (key == FREE) {
+            return hasFreeKey;
+        }
+        int slot = slot(key);
+        int k;
+        while ((k = keys[slot]) != FREE) {
+            if (k == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Associate a value with a key.
+     *
+     * @param key   the key
+     * @param value the value, must not be null
+     * @return the previous value, or null if the key was absent
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Null values are not supported.");
+        }
+        if (key == FREE) {
+            final V previous = freeValue;
+            if (!hasFreeKey) {
+                hasFreeKey = true;
+                size++;
+            }
+            freeValue = value;
+            return previous;
+        }
+        int slot = slot(key);
+        int k;
+        while ((k = keys[slot]) != FREE) {
+            if (k == key) {
+                final V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > (keys.length >> 1)) {
+            rehash(keys.length << 1);
+        }
+        return null;
+    }
+
+    /**
+     * Apply an action to each entry of the map.
+     *
+     * @param action the action
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<? super V> action) {
+        if (hasFreeKey) {
+            action.accept(FREE, freeValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE) {
+                action.accept(keys[i], (V) values[i]);
+            }
+        }
+    }
+
+    /**
+     * The number of entries in the map.
+     *
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Test if the map is empty.
+     *
+     * @return true if there are no entries
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Remove all entries from the map.
+     */
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        Arrays.fill(values, null);
+        hasFreeKey = false;
+        freeValue = null;
+        size = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void rehash(int capacity) {
+        final int[] oldKeys = keys;
+        final Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            final int key = oldKeys[i];
+            if (key != FREE) {
+                int slot = slot(key);
+                while (keys[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    private int slot(int key) {
+        final int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private static int tableSize(int expected) {
+        final long wanted = Math.max(DEFAULT_CAPACITY, (long) expected * 2);
+        if (wanted > 1 << 30) {
+            throw new IllegalArgumentException("Expected size too large: " + expected);
+        }
+        return Integer.highestOneBit((int) wanted - 1) << 1;
+    }
+
+    /**
+     * An operation accepting a primitive int key and its value.
+     *
+     * @param <V> the value type
+     */
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        /**
+         * Perform the operation.
+         *
+         * @param key   the key
+         * @param value the value
+         */
+        void accept(int key, V value);
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc.utils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+/**
+ * Utility methods for binding values to the parameters of a PreparedStatement.
+ *
+ * @since 1.1.0
+ */
+public final class Parameters {
+    private Parameters() {
+    }
+
+    /**
+     * Bind an array of values to a PreparedStatement's parameters, in order, starting with the first parameter.
+     *
+     * @param statement the statement to bind to
+     * @param values    the values, may be null or empty
+     * @throws SQLException if a value can not be bound
+     */
+    public static void bind(final PreparedStatement statement, final Object... values) throws SQLException {
+        if (values == null) {
+            return;
+        }
+        for (int i = 0; i < values.length; i++) {
+            set(statement, i + 1, values[i]);
+        }
+    }
+
+    /**
+     * Create a view of a PreparedStatement whose parameter setters add an offset to the parameter index, so that
+     * setting parameter 1 on the view sets parameter offset + 1 on the statement. All other methods are passed through.
+     *
+     * @param statement the statement
+     * @param offset    the offset to add to parameter indexes
+     * @return the offset view of the statement
+     */
+    public static PreparedStatement offset(final PreparedStatement statement, final int offset) {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> invokeOffset(statement, offset, method, args));
+    }
+
+    private static Object invokeOffset(PreparedStatement statement, int offset, Method method, Object... args) throws Throwable {
+        if (method.getName().startsWith("set") && args != null && args.length > 1
+                && method.getParameterTypes()[0] == int.class) {
+            args[0] = (Integer) args[0] + offset;
+        }
+        try {
+            return method.invoke(statement, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Bind a single value to a PreparedStatement parameter, using the type specific setter for the common
+     * JDBC types, and falling back to setObject for others.
+     *
+     * @param statement the statement to bind to
+     * @param index     the parameter index, starting at 1
+     * @param value     the value, null values are bound with setNull
+     * @throws SQLException if the value can not be bound
+     */
+    @SuppressWarnings("PMD.CyclomaticComplexity")
+    public static void set(final PreparedStatement statement, final int index, final Object value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, Types.NULL);
+        } else if (value instanceof String) {
+            statement.setString(index, (String) value);
+        } else if (value instanceof Integer) {
+            statement.setInt(index, (Integer) value);
+        } else if (value instanceof Long) {
+            statement.setLong(index, (Long) value);
+        } else if (value instanceof Double) {
+            statement.setDouble(index, (Double) value);
+        } else if (value instanceof Boolean) {
+            statement.setBoolean(index, (Boolean) value);
+        } else if (value instanceof BigDecimal) {
+            statement.setBigDecimal(index, (BigDecimal) value);
+        } else if (value instanceof Timestamp) {
+            statement.setTimestamp(index, (Timestamp) value);
+        } else if (value instanceof Date) {
+            statement.setDate(index, (Date) value);
+        } else if (value instanceof Time) {
+            statement.setTime(index, (Time) value);
+        } else if (value instanceof Float) {
+            statement.setFloat(index, (Float) value);
+        } else if (value instanceof Short) {
+            statement.setShort(index, (Short) value);
+        } else if (value instanceof Byte) {
+            statement.setByte(index, (Byte) value);
+        } else if (value instanceof byte[]) {
+            statement.setBytes(index, (byte[]) value);
+        } else {
+            statement.setObject(index, value);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc.utils;
+
+import com.github.nwillc.funjdbc.UncheckedSQLException;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An Iterator that reads ahead from another on a background task, into a bounded buffer. The reader waits while
+ * the buffer is full, and the consumer while it's empty, so reading and consuming overlap without unbounded
+ * memory. A failure reading is rethrown to the consumer when it reaches it. Closing stops the reader and waits for
+ * it to finish, so that the source's resources can then be safely freed. The reader is not interrupted, as
+ * interrupting JDBC I/O may break the connection, instead it checks for close between elements. Null elements
+ * are buffered as a marker, as the buffer can't hold nulls.
+ *
+ * @param <T> the element type
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+final class PrefetchIterator<T> implements Iterator<T>, AutoCloseable {
+    private static final Object END = new Object();
+    private static final Object NULL = new Object();
+    private static final long POLL_MILLIS = 10;
+    private final Iterator<T> source;
+    private final BlockingQueue<Object> buffer;
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private volatile boolean stopped;
+    private Object next;
+    private boolean fetched;
+
+    PrefetchIterator(Iterator<T> source, int capacity, Executor executor) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        this.source = source;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        try {
+            executor.execute(this::read);
+        } catch (RejectedExecutionException e) {
+            finished.countDown();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!fetched) {
+            if (stopped) {
+                return false;
+            }
+            try {
+                next = buffer.take();
+                fetched = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UncheckedSQLException("Interrupted waiting for rows", e);
+            }
+        }
+        if (next instanceof Failure) {
+            throw ((Failure) next).exception;
+        }
+        return next != END;
+    }
+
+    @SuppressWarnings({"unchecked", "PMD.NullAssignment"})
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final T element = next == NULL ? null : (T) next;
+        next = null;
+        fetched = false;
+        return element;
+    }
+
+    /**
+     * Stop the background reader and wait for it to finish.
+     */
+    @Override
+    public void close() {
+        stopped = true;
+        buffer.clear();
+        try {
+            finished.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private void read() {
+        try {
+            while (!stopped && source.hasNext()) {
+                final T element = source.next();
+                put(element == null ? NULL : element);
+            }
+            put(END);
+        } catch (RuntimeException e) {
+            put(new Failure(e));
+        } finally {
+            finished.countDown();
+        }
+    }
+
+    private void put(Object element) {
+        try {
+            while (!stopped && !buffer.offer(element, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                // wait for room or close
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopped = true;
+        }
+    }
+
+    private static final class Failure {
+        final RuntimeException exception;
+
+        Failure(RuntimeException exception) {
+            this.exception = exception;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc.utils;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * A Spliterator over ResultSet rows that splits by extracting a batch of rows into an array, so a parallel
+ * stream can process rows on other threads while the cursor itself is only ever advanced by one. Batches
+ * start small and double in size, up to a maximum, so small results still split and large ones don't split
+ * too finely. Each batch is SIZED and SUBSIZED, and encounter order is preserved.
+ * <p>
+ * The JDK's own iterator spliterator also splits into array batches, but its first batch is 1024 elements,
+ * so results of fewer rows than that don't split at all. Starting at {@value #INITIAL_BATCH} rows is the gain here.
+ *
+ * @param <T> the element type
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+final class ResultSetSpliterator<T> implements Spliterator<T> {
+    static final int INITIAL_BATCH = 64;
+    static final int MAX_BATCH = 1 << 16;
+    private static final int CHARACTERISTICS = ORDERED;
+    private final Iterator<T> iterator;
+    private int batch = INITIAL_BATCH;
+
+    ResultSetSpliterator(Iterator<T> iterator) {
+        this.iterator = iterator;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (iterator.hasNext()) {
+            action.accept(iterator.next());
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        iterator.forEachRemaining(action);
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        if (!iterator.hasNext()) {
+            return null;
+        }
+        final Object[] rows = new Object[batch];
+        int count = 0;
+        do {
+            rows[count++] = iterator.next();
+        } while (count < rows.length && iterator.hasNext());
+        batch = Math.min(batch << 1, MAX_BATCH);
+        return Spliterators.spliterator(rows, 0, count, CHARACTERISTICS);
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return CHARACTERISTICS;
+    }
+}
@@ -21,8 +21,6 @@ import com.github.nwillc.funjdbc.ResultSetIterator;
 import com.github.nwillc.funjdbc.functions.Extractor;
 
 import java.sql.ResultSet;
-import java.util.Spliterator;
-import java.util.Spliterators;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -34,7 +32,32 @@ public final class ResultSetStream {
 
     public static <T> Stream<T> stream(ResultSet resultSet, Extractor<T> extractor) {
         final ResultSetIterator<T> iterator = new ResultSetIterator<>(resultSet, extractor);
-        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+        return StreamSupport.stream(new ResultSetSpliterator<>(iterator), false)
                 .onClose(() -> close(resultSet));
     }
+
+    /**
+     * Stream the rows of a ResultSet, reading and extracting them ahead of the consumer on a background task, see
+     * {@link TaskExecutors#perTask()}, into a bounded buffer. Closing the stream stops the reader, and waits for it,
+     * before closing the ResultSet.
+     *
+     * @param resultSet the ResultSet
+     * @param extractor the extractor for rows
+     * @param prefetch  the number of rows to buffer, zero to read rows as consumed
+     * @param <T>       the element type
+     * @return a stream of extracted rows
+     * @since 1.1.0
+     */
+    public static <T> Stream<T> stream(ResultSet resultSet, Extractor<T> extractor, int prefetch) {
+        if (prefetch == 0) {
+            return stream(resultSet, extractor);
+        }
+        final PrefetchIterator<T> iterator =
+                new PrefetchIterator<>(new ResultSetIterator<>(resultSet, extractor), prefetch, TaskExecutors.perTask());
+        return StreamSupport.stream(new ResultSetSpliterator<>(iterator), false)
+                .onClose(() -> {
+                    iterator.close();
+                    close(resultSet);
+                });
+    }
 }
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc.utils;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A batch of rows extracted from a ResultSet, an unmodifiable List backed by an array. Batches streamed by
+ * {@link #chunks(Stream, int, boolean)} with reuse are refilled for each chunk, so they are only valid until the
+ * next chunk is requested, and must be copied to be retained.
+ *
+ * @param <T> the element type
+ * @since 1.1.0
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class RowBatch<T> extends AbstractList<T> implements RandomAccess {
+    private final Object[] elements;
+    private int size;
+
+    private RowBatch(int capacity) {
+        elements = new Object[capacity];
+    }
+
+    /**
+     * Group a stream of rows into a stream of batches of up to a given number of rows. Each stream of batches has
+     * its own batch to refill when reusing, and rows are only taken from the stream of rows, so the ResultSet
+     * behind it is advanced by its own iteration alone. Closing the stream of batches closes the stream of rows.
+     *
+     * @param rows      the stream of rows
+     * @param chunkSize the maximum rows per batch
+     * @param reuse     true if a single batch should be refilled for each chunk rather than a new batch allocated
+     * @param <T>       the element type
+     * @return a stream of batches
+     */
+    public static <T> Stream<RowBatch<T>> chunks(Stream<T> rows, int chunkSize, boolean reuse) {
+        if (chunkSize < 1) {
+            rows.close();
+            throw new IllegalArgumentException("Chunk size must be positive.");
+        }
+        return StreamSupport.stream(new Chunks<>(rows.spliterator(), chunkSize, reuse), false).onClose(rows::close);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return (T) elements[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Object[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    private RowBatch<T> reset() {
+        Arrays.fill(elements, 0, size, null);
+        size = 0;
+        modCount++;
+        return this;
+    }
+
+    /**
+     * A spliterator filling batches from a spliterator of rows. A reused batch is never split off, as the same
+     * batch would then be handed to several threads.
+     *
+     * @param <T> the element type
+     */
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    private static final class Chunks<T> extends Spliterators.AbstractSpliterator<RowBatch<T>> implements Consumer<T> {
+        private final Spliterator<T> rows;
+        private final int chunkSize;
+        private final RowBatch<T> shared;
+        private RowBatch<T> filling;
+        private boolean exhausted;
+
+        Chunks(Spliterator<T> rows, int chunkSize, boolean reuse) {
+            super(Long.MAX_VALUE, ORDERED | NONNULL);
+            this.rows = rows;
+            this.chunkSize = chunkSize;
+            this.shared = reuse ? new RowBatch<>(chunkSize) : null;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super RowBatch<T>> action) {
+            if (exhausted) {
+                return false;
+            }
+            filling = shared == null ? new RowBatch<>(chunkSize) : shared.reset();
+            while (filling.size < chunkSize) {
+                if (!rows.tryAdvance(this)) {
+                    exhausted = true;
+                    break;
+                }
+            }
+            final RowBatch<T> batch = filling;
+            filling = null;
+            if (batch.size == 0) {
+                return false;
+            }
+            action.accept(batch);
+            return true;
+        }
+
+        @Override
+        public Spliterator<RowBatch<T>> trySplit() {
+            return shared == null ? super.trySplit() : null;
+        }
+
+        @Override
+        public void accept(T row) {
+            filling.elements[filling.size++] = row;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc.utils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Utility methods providing executors for running database work concurrently.
+ *
+ * @since 1.1.0
+ */
+public final class TaskExecutors {
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    private TaskExecutors() {
+    }
+
+    /**
+     * A shared executor for blocking database tasks. Its threads are daemon threads, created as needed and
+     * retired when idle.
+     *
+     * @return the shared executor
+     */
+    public static Executor shared() {
+        return Shared.EXECUTOR;
+    }
+
+    /**
+     * An executor running each task on its own virtual thread, when the runtime supports them, otherwise the
+     * {@link #shared()} executor. Virtual threads are looked up reflectively, so this works on any runtime.
+     *
+     * @return a thread per task executor
+     */
+    public static Executor perTask() {
+        return PerTask.EXECUTOR;
+    }
+
+    /**
+     * Test if {@link #perTask()} runs tasks on virtual threads.
+     *
+     * @return true if virtual threads are in use
+     */
+    public static boolean isVirtual() {
+        return PerTask.EXECUTOR != Shared.EXECUTOR;
+    }
+
+    private static final class Shared {
+        static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(daemonThreads());
+    }
+
+    private static final class PerTask {
+        static final Executor EXECUTOR = virtualThreads();
+
+        private static Executor virtualThreads() {
+            try {
+                final Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (Executor) factory.invoke(null);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return Shared.EXECUTOR;
+            }
+        }
+    }
+
+    private static ThreadFactory daemonThreads() {
+        return runnable -> {
+            final Thread thread = new Thread(runnable, "fun-jdbc-" + THREADS.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.zapodot.junit.db.EmbeddedDatabaseRule;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.nwillc.funjdbc.SqlStatement.prepared;
+import static com.github.nwillc.funjdbc.SqlStatement.sql;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class AsyncDbAccessorTest implements DbAccessor {
+    private AsyncDbAccessor async;
+
+    @Rule
+    public final EmbeddedDatabaseRule embeddedDb = EmbeddedDatabaseRule
+            .builder()
+            .initializedByPlugin(new TestDbInitialization())
+            .build();
+
+    @Before
+    public void setUp() {
+        async = new AsyncDbAccessor(this);
+    }
+
+    @Test
+    public void testQuery() throws Exception {
+        assertThat(async.dbQuery(sql("SELECT WORD FROM WORDS ORDER BY WORD"), rs -> rs.getString(1)).get())
+                .containsExactly("a", "a", "b");
+    }
+
+    @Test
+    public void testFind() throws Exception {
+        assertThat(async.dbFind(prepared("SELECT COUNT(*) FROM WORDS WHERE WORD = ?", "a"), rs -> rs.getInt(1)).get())
+                .contains(2);
+    }
+
+    @Test
+    public void testUpdate() throws Exception {
+        assertThat(async.dbUpdate(sql("UPDATE WORDS SET WORD = 'c' WHERE WORD = 'b'")).get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testExecute() throws Exception {
+        assertThat(async.dbExecute(sql("SELECT 1")).get()).isTrue();
+    }
+
+    @Test
+    public void testEnrich() throws Exception {
+        final Map<String, AtomicInteger> counts = new HashMap<>();
+        counts.put("a", new AtomicInteger());
+        async.dbEnrich(sql("SELECT WORD, COUNT(*) FROM WORDS GROUP BY WORD"), rs -> rs.getString(1), counts,
+                (e, rs) -> e.set(rs.getInt(2))).get();
+        assertThat(counts.get("a").get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testTransaction() throws Exception {
+        assertThat(async.dbTransaction(tx -> tx.dbUpdate(sql("INSERT INTO WORDS (WORD) VALUES ('c')"))).get())
+                .isEqualTo(1);
+    }
+
+    @Test
+    public void testFailure() {
+        assertThatThrownBy(() -> async.dbQuery(sql("blah"), rs -> rs.getString(1)).get())
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(SQLException.class);
+    }
+
+    @Test
+    public void testFanOut() throws Exception {
+        final List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(async.dbFind(sql("SELECT COUNT(*) FROM WORDS"), rs -> rs.getInt(1)).thenApply(o -> o.orElse(0)));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+        for (CompletableFuture<Integer> future : futures) {
+            assertThat(future.get()).isEqualTo(3);
+        }
+        assertThat(async.getInFlight()).isEqualTo(0);
+    }
+
+    @Test
+    public void testInFlightCapped() throws Exception {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger peak = new AtomicInteger();
+        final AsyncDbAccessor capped = new AsyncDbAccessor(this, Executors.newFixedThreadPool(8), 2);
+        final List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            futures.add(capped.dbTransaction(tx -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                return 1;
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+        assertThat(peak.get()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    public void testQueuedBeforeExecutor() throws Exception {
+        final AtomicInteger threads = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+            threads.incrementAndGet();
+            return new Thread(r);
+        });
+        final AsyncDbAccessor capped = new AsyncDbAccessor(this, executor, 2);
+        final List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            futures.add(capped.dbTransaction(tx -> {
+                try {
+                    return release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }));
+        }
+        assertThat(capped.getInFlight()).isEqualTo(2);
+        assertThat(capped.getQueued()).isEqualTo(14);
+        assertThat(threads.get()).isEqualTo(2);
+        release.countDown();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+        assertThat(threads.get()).isLessThanOrEqualTo(2);
+        assertThat(capped.getQueued()).isZero();
+        executor.shutdown();
+    }
+
+    @Test
+    public void testBadCap() {
+        assertThatThrownBy(() -> new AsyncDbAccessor(this, Runnable::run, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Override
+    public Connection getConnection() {
+        return embeddedDb.getConnection();
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc;
+
+import com.github.nwillc.funjdbc.functions.Extractor;
+import com.github.nwillc.funjdbc.utils.RowBatch;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.zapodot.junit.db.EmbeddedDatabaseRule;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.github.nwillc.funjdbc.SqlStatement.prepared;
+import static com.github.nwillc.funjdbc.SqlStatement.sql;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CachingDbAccessorTest implements DbAccessor {
+    private static final Extractor<String> WORD = rs -> rs.getString("WORD");
+    private static final SqlStatement ALL = sql("SELECT WORD FROM WORDS ORDER BY WORD");
+    private CachingDbAccessor cache;
+
+    @Rule
+    public final EmbeddedDatabaseRule embeddedDb = EmbeddedDatabaseRule
+            .builder()
+            .initializedByPlugin(new TestDbInitialization())
+            .build();
+
+    @Before
+    public void setUp() {
+        cache = CachingDbAccessor.builder(this).build();
+    }
+
+    @Test
+    public void testHit() throws Exception {
+        assertThat(words(ALL)).containsExactly("a", "a", "b");
+        assertThat(words(ALL)).containsExactly("a", "a", "b");
+        assertThat(cache.getMisses()).isEqualTo(1);
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.getWeight()).isEqualTo(3);
+    }
+
+    @Test
+    public void testKeyedByArguments() throws Exception {
+        final String sql = "SELECT WORD FROM WORDS WHERE WORD = ?";
+        assertThat(words(prepared(sql, "a"))).containsExactly("a", "a");
+        assertThat(words(prepared(sql, "b"))).containsExactly("b");
+        assertThat(words(prepared(sql, "a"))).containsExactly("a", "a");
+        assertThat(cache.getMisses()).isEqualTo(2);
+        assertThat(cache.getHits()).isEqualTo(1);
+    }
+
+    @Test
+    public void testSnapshotIsImmutable() throws Exception {
+        words(ALL);
+        try (Stream<String> stream = cache.dbQuery(ALL, WORD)) {
+            final List<String> rows = stream.collect(Collectors.toList());
+            rows.clear();
+        }
+        assertThat(words(ALL)).containsExactly("a", "a", "b");
+    }
+
+    @Test
+    public void testChunkedReusePassesThrough() throws Exception {
+        final List<List<String>> copies = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            try (Stream<RowBatch<String>> batches = cache.dbQueryChunked(ALL, WORD, 2, true)) {
+                copies.add(batches.map(ArrayList::new).flatMap(List::stream).collect(Collectors.toList()));
+            }
+        }
+        assertThat(copies).containsExactly(Arrays.asList("a", "a", "b"), Arrays.asList("a", "a", "b"));
+        assertThat(cache.size()).isEqualTo(0);
+        assertThat(cache.getMisses()).isEqualTo(0);
+    }
+
+    @Test
+    public void testPartitionedPassesThrough() throws Exception {
+        try (Stream<String> stream = cache.dbQueryPartitioned(sql("SELECT ID, WORD FROM KEYED"), "ID", 1, 10, 2, WORD)) {
+            stream.count();
+        }
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testUpdateInvalidates() throws Exception {
+        words(ALL);
+        assertThat(cache.dbUpdate(sql("UPDATE WORDS SET WORD = 'c' WHERE WORD = 'b'"))).isEqualTo(1);
+        assertThat(cache.getInvalidations()).isEqualTo(1);
+        assertThat(words(ALL)).containsExactly("a", "a", "c");
+    }
+
+    @Test
+    public void testOtherTableUpdateKeeps() throws Exception {
+        words(ALL);
+        cache.dbUpdate(sql("INSERT INTO KEYED (WORD) VALUES ('z')"));
+        assertThat(cache.getInvalidations()).isZero();
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testExplicitInvalidate() throws Exception {
+        words(ALL);
+        cache.invalidate("words");
+        assertThat(cache.size()).isZero();
+        words(ALL);
+        cache.invalidateAll();
+        assertThat(cache.size()).isZero();
+        assertThat(cache.getWeight()).isZero();
+    }
+
+    @Test
+    public void testDeclaredTables() throws Exception {
+        cache = CachingDbAccessor.builder(this).withTables(s -> Collections.singleton("LEXICON")).build();
+        words(ALL);
+        cache.invalidate("WORDS");
+        assertThat(cache.size()).isEqualTo(1);
+        cache.invalidate("LEXICON");
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    public void testTransactionInvalidates() throws Exception {
+        words(ALL);
+        cache.dbTransaction(session -> session.dbUpdate(sql("DELETE FROM WORDS")));
+        assertThat(words(ALL)).isEmpty();
+    }
+
+    @Test
+    public void testTtl() throws Exception {
+        cache = CachingDbAccessor.builder(this).withTtl(1).build();
+        words(ALL);
+        Thread.sleep(5);
+        words(ALL);
+        assertThat(cache.getMisses()).isEqualTo(2);
+        assertThat(cache.getEvictions()).isEqualTo(1);
+    }
+
+    @Test
+    public void testPerStatementTtl() throws Exception {
+        cache = CachingDbAccessor.builder(this).withTtl(s -> s == ALL ? 0 : 60_000).build();
+        words(ALL);
+        words(ALL);
+        assertThat(cache.size()).isZero();
+        assertThat(cache.getMisses()).isZero();
+    }
+
+    @Test
+    public void testMaxEntries() throws Exception {
+        cache = CachingDbAccessor.builder(this).withMaxEntries(1).build();
+        words(prepared("SELECT WORD FROM WORDS WHERE WORD = ?", "a"));
+        words(prepared("SELECT WORD FROM WORDS WHERE WORD = ?", "b"));
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.getEvictions()).isEqualTo(1);
+    }
+
+    @Test
+    public void testMaxWeight() throws Exception {
+        cache = CachingDbAccessor.builder(this).withMaxWeight(2).build();
+        words(ALL);
+        assertThat(cache.size()).isZero();
+        words(prepared("SELECT WORD FROM WORDS WHERE WORD = ?", "b"));
+        assertThat(cache.getWeight()).isEqualTo(1);
+    }
+
+    @Test
+    public void testFind() throws Exception {
+        final SqlStatement missing = prepared("SELECT WORD FROM WORDS WHERE WORD = ?", "z");
+        assertThat(cache.dbFind(missing, WORD)).isEmpty();
+        assertThat(cache.dbFind(missing, WORD)).isEmpty();
+        assertThat(cache.getHits()).isEqualTo(1);
+        cache.dbUpdate(sql("INSERT INTO WORDS (WORD) VALUES ('z')"));
+        assertThat(cache.dbFind(missing, WORD)).contains("z");
+    }
+
+    @Test
+    public void testTables() {
+        assertThat(CachingDbAccessor.tables("SELECT * FROM public.words w JOIN \"Keyed\" k ON k.WORD = w.WORD"))
+                .containsOnly("WORDS", "KEYED");
+        assertThat(CachingDbAccessor.tables("SELECT * FROM A a, B AS b WHERE a.X = b.X")).containsOnly("A", "B");
+        assertThat(CachingDbAccessor.tables("UPDATE WORDS SET WORD = 'x'")).containsOnly("WORDS");
+        assertThat(CachingDbAccessor.tables("SELECT 1")).isEmpty();
+    }
+
+    @Test
+    public void testBuilderBounds() {
+        assertThatThrownBy(() -> CachingDbAccessor.builder(null)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CachingDbAccessor.builder(this).withMaxEntries(0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CachingDbAccessor.builder(this).withMaxWeight(0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private List<String> words(SqlStatement sqlStatement) throws Exception {
+        try (Stream<String> stream = cache.dbQuery(sqlStatement, WORD)) {
+            return stream.collect(Collectors.toList());
+        }
+    }
+
+    @Override
+    public Connection getConnection() {
+        return embeddedDb.getConnection();
+    }
+}
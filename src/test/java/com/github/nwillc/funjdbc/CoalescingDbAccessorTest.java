@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc;
+
+import com.github.nwillc.funjdbc.functions.Extractor;
+import com.github.nwillc.funjdbc.utils.RowBatch;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.zapodot.junit.db.EmbeddedDatabaseRule;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.github.nwillc.funjdbc.SqlStatement.prepared;
+import static com.github.nwillc.funjdbc.SqlStatement.sql;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CoalescingDbAccessorTest implements DbAccessor {
+    private static final SqlStatement ALL = sql("SELECT WORD FROM WORDS ORDER BY WORD");
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final Extractor<String> blocking = rs -> {
+        await(release);
+        return rs.getString(1);
+    };
+
+    @Rule
+    public final EmbeddedDatabaseRule embeddedDb = EmbeddedDatabaseRule
+            .builder()
+            .initializedByPlugin(new TestDbInitialization())
+            .build();
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    public void testCoalesces() throws Exception {
+        final CoalescingDbAccessor coalescing = new CoalescingDbAccessor(this);
+        final List<CompletableFuture<List<String>>> futures = new ArrayList<>();
+        futures.add(CompletableFuture.supplyAsync(() -> words(coalescing, ALL, blocking), executor));
+        waitFor(() -> coalescing.getInFlight() == 1);
+        for (int i = 0; i < 4; i++) {
+            futures.add(CompletableFuture.supplyAsync(() -> words(coalescing, ALL, blocking), executor));
+        }
+        waitFor(() -> coalescing.getCoalesced() == 4);
+        release.countDown();
+        for (CompletableFuture<List<String>> future : futures) {
+            assertThat(future.get(5, TimeUnit.SECONDS)).containsExactly("a", "a", "b");
+        }
+        assertThat(coalescing.getExecutions()).isEqualTo(1);
+        assertThat(coalescing.getInFlight()).isZero();
+    }
+
+    @Test
+    public void testNothingRetained() throws Exception {
+        final CoalescingDbAccessor coalescing = new CoalescingDbAccessor(this);
+        final Extractor<String> word = rs -> rs.getString(1);
+        assertThat(words(coalescing, ALL, word)).containsExactly("a", "a", "b");
+        coalescing.dbUpdate(sql("UPDATE WORDS SET WORD = 'c' WHERE WORD = 'b'"));
+        assertThat(words(coalescing, ALL, word)).containsExactly("a", "a", "c");
+        assertThat(coalescing.getExecutions()).isEqualTo(2);
+        assertThat(coalescing.getCoalesced()).isZero();
+    }
+
+    @Test
+    public void testReadYourWrites() throws Exception {
+        final CoalescingDbAccessor coalescing = new CoalescingDbAccessor(this);
+        final CompletableFuture<List<String>> stale =
+                CompletableFuture.supplyAsync(() -> words(coalescing, ALL, blocking), executor);
+        waitFor(() -> coalescing.getInFlight() == 1);
+        coalescing.dbUpdate(sql("UPDATE WORDS SET WORD = 'c' WHERE WORD = 'b'"));
+        assertThat(coalescing.getInFlight()).isZero();
+        final CompletableFuture<List<String>> fresh =
+                CompletableFuture.supplyAsync(() -> words(coalescing, ALL, blocking), executor);
+        waitFor(() -> coalescing.getExecutions() == 2);
+        release.countDown();
+        assertThat(fresh.get(5, TimeUnit.SECONDS)).containsExactly("a", "a", "c");
+        assertThat(stale.get(5, TimeUnit.SECONDS)).hasSize(3);
+        assertThat(coalescing.getCoalesced()).isZero();
+        assertThat(coalescing.getInFlight()).isZero();
+    }
+
+    @Test
+    public void testChunkedReusePassesThrough() throws Exception {
+        final CoalescingDbAccessor coalescing = new CoalescingDbAccessor(this);
+        try (Stream<RowBatch<String>> batches = coalescing.dbQueryChunked(ALL, rs -> rs.getString(1), 2, true)) {
+            assertThat(batches.<List<String>>map(ArrayList::new).collect(Collectors.toList()))
+                    .containsExactly(Arrays.asList("a", "a"), Collections.singletonList("b"));
+        }
+        assertThat(coalescing.getExecutions()).isZero();
+    }
+
+    @Test
+    public void testBounded() throws Exception {
+        final CoalescingDbAccessor coalescing = new CoalescingDbAccessor(this, 1);
+        final CompletableFuture<List<String>> blocked =
+                CompletableFuture.supplyAsync(() -> words(coalescing, ALL, blocking), executor);
+        waitFor(() -> coalescing.getInFlight() == 1);
+        assertThat(words(coalescing, prepared("SELECT WORD FROM WORDS WHERE WORD = ?", "b"), rs -> rs.getString(1)))
+                .containsExactly("b");
+        assertThat(coalescing.getInFlight()).isEqualTo(1);
+        release.countDown();
+        assertThat(blocked.get(5, TimeUnit.SECONDS)).hasSize(3);
+        assertThat(coalescing.getExecutions()).isEqualTo(2);
+    }
+
+    @Test
+    public void testFind() throws Exception {
+        final CoalescingDbAccessor coalescing = new CoalescingDbAccessor(this);
+        assertThat(coalescing.dbFind(prepared("SELECT WORD FROM WORDS WHERE WORD = ?", "b"), rs -> rs.getString(1)))
+                .contains("b");
+        assertThat(coalescing.dbFind(prepared("SELECT WORD FROM WORDS WHERE WORD = ?", "z"), rs -> rs.getString(1)))
+                .isEmpty();
+    }
+
+    @Test
+    public void testFailure() {
+        final CoalescingDbAccessor coalescing = new CoalescingDbAccessor(this);
+        assertThatThrownBy(() -> coalescing.dbQuery(sql("SELECT NOPE FROM WORDS"), rs -> rs.getString(1)))
+                .isInstanceOf(SQLException.class);
+        assertThat(coalescing.getInFlight()).isZero();
+    }
+
+    @Test
+    public void testMaxInFlight() {
+        assertThatThrownBy(() -> new CoalescingDbAccessor(this, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Override
+    public Connection getConnection() {
+        return embeddedDb.getConnection();
+    }
+
+    private static List<String> words(DbAccessor accessor, SqlStatement sqlStatement, Extractor<String> extractor) {
+        try (Stream<String> stream = accessor.dbQuery(sqlStatement, extractor)) {
+            return stream.collect(Collectors.toList());
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
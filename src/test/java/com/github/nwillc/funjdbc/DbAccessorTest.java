@@ -8,8 +8,12 @@
 
 package com.github.nwillc.funjdbc;
 
+import com.github.nwillc.funjdbc.functions.Binder;
 import com.github.nwillc.funjdbc.functions.Extractor;
+import com.github.nwillc.funjdbc.utils.BFactory;
 import com.github.nwillc.funjdbc.utils.EFactory;
+import com.github.nwillc.funjdbc.utils.IntObjectMap;
+import com.github.nwillc.funjdbc.utils.LongObjectMap;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -19,16 +23,23 @@ import org.junit.runners.Parameterized.Parameters;
 import org.zapodot.junit.db.EmbeddedDatabaseRule;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static com.github.nwillc.funjdbc.SqlStatement.in;
+import static com.github.nwillc.funjdbc.SqlStatement.named;
+import static com.github.nwillc.funjdbc.SqlStatement.prepared;
 import static com.github.nwillc.funjdbc.SqlStatement.sql;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -85,6 +96,40 @@ public class DbAccessorTest implements DbAccessor {
         assertThat(words.count()).isEqualTo(2);
     }
 
+    @Test
+    public void testQueryPrepared() throws Exception {
+        Stream<Word> words = dbQuery(prepared("SELECT * FROM WORDS WHERE WORD = ?", "a"), wordExtractor);
+        assertThat(words.count()).isEqualTo(2);
+    }
+
+    @Test
+    public void testQueryNamed() throws Exception {
+        Stream<Word> words = dbQuery(named("SELECT * FROM WORDS WHERE WORD = :word OR WORD = :word",
+                Collections.singletonMap("word", "a")), wordExtractor);
+        assertThat(words.count()).isEqualTo(2);
+    }
+
+    @Test
+    public void testQueryInList() throws Exception {
+        try (Stream<Word> words = dbQuery(prepared("SELECT * FROM WORDS WHERE WORD IN (?)",
+                in(Arrays.asList("a", "b", "c"), 2)), wordExtractor)) {
+            assertThat(words.count()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    public void testEmptyInList() throws Exception {
+        assertThat(dbCount(prepared("SELECT * FROM WORDS WHERE WORD IN (?)", in(Collections.emptyList())))).isZero();
+        // documented: NOT IN (NULL) matches nothing, so an empty InList is not a NOT IN no-op
+        assertThat(dbCount(prepared("SELECT * FROM WORDS WHERE WORD NOT IN (?)", in(Collections.emptyList())))).isZero();
+    }
+
+    @Test
+    public void testUpdateInList() throws Exception {
+        assertThat(dbUpdate(prepared("UPDATE WORDS set WORD = ? WHERE WORD IN (?)", "c",
+                in(Arrays.asList("a", "b"), 1)))).isEqualTo(3);
+    }
+
     @Test
     public void testFind() throws Exception {
         Optional<Word> word = dbFind(sql("SELECT * FROM WORDS WHERE WORD = 'b'"), wordExtractor);
@@ -101,6 +146,13 @@ public class DbAccessorTest implements DbAccessor {
         assertThat(word.get().word).isEqualTo("b");
     }
 
+    @Test
+    public void testFindPrepared() throws Exception {
+        Optional<Word> word = dbFind(prepared("SELECT * FROM WORDS WHERE WORD = ?", "b"), wordExtractor);
+        assertThat(word.isPresent()).isTrue();
+        assertThat(word.get().word).isEqualTo("b");
+    }
+
 
     @Test
     public void testNotFound() throws Exception {
@@ -126,6 +178,70 @@ public class DbAccessorTest implements DbAccessor {
         assertThat(words.count()).isEqualTo(count);
     }
 
+    @Test
+    public void testUpdatePrepared() throws Exception {
+        assertThat(dbUpdate(prepared("UPDATE WORDS set WORD = ? WHERE WORD = ?", "c", "a"))).isEqualTo(2);
+        Stream<Word> words = dbQuery(prepared("SELECT * FROM WORDS WHERE WORD = ?", "c"), wordExtractor);
+        assertThat(words.count()).isEqualTo(2);
+    }
+
+    @Test
+    public void testBatch() throws Exception {
+        final long count = dbBatch(prepared("INSERT INTO WORDS (WORD) VALUES (?)"), Stream.of("x", "y", "z"),
+                (s, w) -> s.setString(1, w), 2);
+        assertThat(count).isEqualTo(3);
+        try (Stream<Word> words = dbQuery(sql("SELECT * FROM WORDS"), wordExtractor)) {
+            assertThat(words.count()).isEqualTo(6);
+        }
+    }
+
+    @Test
+    public void testInsertBulk() throws Exception {
+        final long count = dbInsertBulk(prepared("INSERT INTO WORDS (WORD) VALUES (?)"), Stream.of("w", "x", "y", "z", "zz"),
+                (s, w) -> s.setString(1, w), 2);
+        assertThat(count).isEqualTo(5);
+        try (Stream<Word> words = dbQuery(sql("SELECT * FROM WORDS"), wordExtractor)) {
+            assertThat(words.count()).isEqualTo(8);
+        }
+    }
+
+    @Test
+    public void testInsertBulkBinders() throws Exception {
+        final Binder<String> lambda = (s, w) -> s.setString(1, w);
+        final Binder<String> factory = new BFactory<String>().add(w -> w, PreparedStatement::setString, 1).getBinder();
+        assertThat(MultiRowInsert.bindsOffset(lambda)).isFalse();
+        assertThat(MultiRowInsert.bindsOffset(factory)).isTrue();
+        dbUpdate(sql("DELETE FROM WORDS"));
+        assertThat(dbInsertBulk(prepared("INSERT INTO WORDS (WORD) VALUES (?)"), Stream.of("p", "q", "r"), lambda, 2))
+                .isEqualTo(3);
+        assertThat(dbInsertBulk(prepared("INSERT INTO WORDS (WORD) VALUES (?)"), Stream.of("s", "t", "u"), factory, 2))
+                .isEqualTo(3);
+        try (Stream<String> words = dbQuery(sql("SELECT WORD FROM WORDS ORDER BY WORD"), rs -> rs.getString(1))) {
+            assertThat(words).containsExactly("p", "q", "r", "s", "t", "u");
+        }
+    }
+
+    @Test
+    public void testInsertBulkNotValues() {
+        assertThatThrownBy(() -> dbInsertBulk(prepared("INSERT INTO WORDS SELECT ?"), Stream.of("x"),
+                (s, w) -> s.setString(1, w), 2)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testInsertBulkGeneratedKeys() throws Exception {
+        final String[] keys = {"ID"};
+        try (Stream<Long> keyStream = dbInsertBulkGetGeneratedKeys(prepared("INSERT INTO KEYED(WORD) VALUES(?)"),
+                Stream.of("x", "y", "z"), (s, w) -> s.setString(1, w), 1, rs -> rs.getLong(1), keys)) {
+            assertThat(keyStream.distinct().count()).isEqualTo(3L);
+        }
+    }
+
+    @Test
+    public void testBatchBadSize() {
+        assertThatThrownBy(() -> dbBatch(prepared("INSERT INTO WORDS (WORD) VALUES (?)"), Stream.of("x"),
+                (s, w) -> s.setString(1, w), 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
     @Test
     public void testUpdateWithBadSqlException() {
         final SqlStatement sql = sql("blah blah");
@@ -144,6 +260,59 @@ public class DbAccessorTest implements DbAccessor {
         dbFind(sql("SELECT * FROM WORDS WHERE WORD = 'a'"), wordExtractor);
     }
 
+    @Test
+    public void shouldQueryWithOptions() throws Exception {
+        final QueryOptions options = QueryOptions.DEFAULT.withMaxRows(1).withFetchSize(1);
+        try (Stream<Word> words = dbQuery(sql("SELECT * FROM WORDS"), wordExtractor, options)) {
+            assertThat(words.count()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void shouldQueryStreaming() throws Exception {
+        try (Stream<Word> words = dbQuery(sql("SELECT * FROM WORDS"), wordExtractor, QueryOptions.streaming(1))) {
+            assertThat(words.count()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    public void shouldQueryPrefetched() throws Exception {
+        try (Stream<Word> words = dbQuery(sql("SELECT * FROM WORDS"), wordExtractor, QueryOptions.DEFAULT.withPrefetch(2))) {
+            assertThat(words.count()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    public void shouldQueryPrefetchedNulls() throws Exception {
+        dbUpdate(sql("INSERT INTO WORDS (WORD) VALUES (NULL)"));
+        try (Stream<String> words = dbQuery(sql("SELECT WORD FROM WORDS ORDER BY WORD"), rs -> rs.getString(1),
+                QueryOptions.DEFAULT.withPrefetch(2))) {
+            assertThat(words.collect(Collectors.toList())).containsExactly(null, "a", "a", "b");
+        }
+    }
+
+    @Test
+    public void shouldCloseUnfinishedPrefetch() throws Exception {
+        final Stream<Word> words = dbQuery(sql("SELECT * FROM WORDS"), wordExtractor, QueryOptions.DEFAULT.withPrefetch(1));
+        assertThat(words.iterator().next()).isNotNull();
+        words.close();
+    }
+
+    @Test
+    public void shouldDbExists() throws Exception {
+        assertThat(dbExists(sql("SELECT * FROM WORDS WHERE WORD = 'a'"))).isTrue();
+        assertThat(dbExists(prepared("SELECT * FROM WORDS WHERE WORD = ?", "c"))).isFalse();
+        assertThat(dbExists(prepared("SELECT * FROM WORDS WHERE WORD IN (?)", in(Arrays.asList("c", "b"), 1)))).isTrue();
+    }
+
+    @Test
+    public void shouldDbCount() throws Exception {
+        assertThat(dbCount(sql("SELECT * FROM WORDS"))).isEqualTo(3);
+        assertThat(dbCount(prepared("SELECT * FROM WORDS WHERE WORD = ?", "a"))).isEqualTo(2);
+        assertThat(dbCount(prepared("SELECT * FROM WORDS WHERE WORD IN (?)", in(Arrays.asList("a", "b"), 1)))).isEqualTo(3);
+        assertThat(dbCount(sql("SELECT * FROM WORDS WHERE WORD = 'c'"))).isEqualTo(0);
+    }
+
     @Test
     public void shouldDbEnrich() throws Exception {
         Map<String, WordCount> counts = new HashMap<>();
@@ -172,6 +341,84 @@ public class DbAccessorTest implements DbAccessor {
         counts.values().forEach(wordCount -> assertThat(wordCount.count).isEqualTo(0));
     }
 
+    @Test
+    public void shouldDbEnrichLongKeys() throws Exception {
+        LongObjectMap<WordCount> counts = new LongObjectMap<>();
+        counts.put(1L, new WordCount("1"));
+        counts.put(2L, new WordCount("2"));
+
+        dbEnrich(sql("SELECT LENGTH(WORD), COUNT(*) FROM WORDS GROUP BY LENGTH(WORD)"), rs -> rs.getLong(1), counts,
+                (e, rs) -> e.count = rs.getInt(2));
+        assertThat(counts.get(1L).count).isEqualTo(3);
+        assertThat(counts.get(2L).count).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldDbEnrichIntKeys() throws Exception {
+        IntObjectMap<WordCount> counts = new IntObjectMap<>();
+        counts.put(1, new WordCount("1"));
+
+        dbEnrich(prepared("SELECT LENGTH(WORD), COUNT(*) FROM WORDS WHERE WORD IN (?) GROUP BY LENGTH(WORD)",
+                in(Arrays.asList("a", "b"), 1)), rs -> rs.getInt(1), counts, (e, rs) -> e.count += rs.getInt(2));
+        assertThat(counts.get(1).count).isEqualTo(3);
+    }
+
+    @Test
+    public void shouldDbEnrichSkipNullKeys() throws Exception {
+        dbUpdate(sql("INSERT INTO KEYED (ID, WORD) VALUES (0, 'zero')"));
+        LongObjectMap<WordCount> longCounts = new LongObjectMap<>();
+        longCounts.put(0L, new WordCount("0"));
+        IntObjectMap<WordCount> intCounts = new IntObjectMap<>();
+        intCounts.put(0, new WordCount("0"));
+
+        final SqlStatement keys = sql("SELECT CAST(NULL AS BIGINT) FROM WORDS UNION ALL SELECT ID FROM KEYED");
+        dbEnrich(keys, rs -> rs.getLong(1), longCounts, (e, rs) -> e.count++);
+        dbEnrich(keys, rs -> rs.getInt(1), intCounts, (e, rs) -> e.count++);
+        assertThat(longCounts.get(0L).count).isEqualTo(1);
+        assertThat(intCounts.get(0).count).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldDbEnrichByKeys() throws Exception {
+        Map<String, WordCount> counts = new HashMap<>();
+        counts.put("a", new WordCount("a"));
+        counts.put("b", new WordCount("b"));
+
+        dbEnrich(null, keys -> prepared("SELECT WORD, COUNT(*) FROM WORDS WHERE WORD IN (?) GROUP BY WORD", in(keys, 1)),
+                rs -> rs.getString(1), counts, (e, rs) -> e.count = rs.getInt(2), EnrichOptions.DEFAULT);
+        assertThat(counts.get("b").count).isEqualTo(1);
+        assertThat(counts.get("a").count).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldDbEnrichByScanOverThreshold() throws Exception {
+        Map<String, WordCount> counts = new HashMap<>();
+        counts.put("a", new WordCount("a"));
+        counts.put("b", new WordCount("b"));
+
+        dbEnrich(sql("SELECT WORD, COUNT(*) FROM WORDS GROUP BY WORD"),
+                keys -> sql("blah"),
+                rs -> rs.getString(1), counts, (e, rs) -> e.count = rs.getInt(2), EnrichOptions.DEFAULT.withThreshold(1));
+        assertThat(counts.get("b").count).isEqualTo(1);
+        assertThat(counts.get("a").count).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldDbEnrichByKeysFailure() {
+        Map<String, WordCount> counts = new HashMap<>();
+        counts.put("a", new WordCount("a"));
+        counts.put("b", new WordCount("b"));
+
+        assertThatThrownBy(() -> dbEnrich(null, keys -> prepared("SELECT BLAH FROM WORDS WHERE WORD IN (?)", in(keys, 1)),
+                rs -> rs.getString(1), counts, (e, rs) -> e.count = rs.getInt(2), EnrichOptions.DEFAULT))
+                .isInstanceOf(SQLException.class);
+    }
+
+    @Test
+    public void shouldRejectBadEnrichParallelism() {
+        assertThatThrownBy(() -> EnrichOptions.DEFAULT.withParallelism(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
     @Test
     public void shouldDbExecute() throws Exception {
         final SqlStatement sqlStatement = sql("SELECT 1");
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.zapodot.junit.db.EmbeddedDatabaseRule;
+
+import java.sql.Connection;
+
+import static com.github.nwillc.funjdbc.SqlStatement.prepared;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class KeyedCacheTest implements DbAccessor {
+    private KeyedCache<Long, String> cache;
+
+    @Rule
+    public final EmbeddedDatabaseRule embeddedDb = EmbeddedDatabaseRule
+            .builder()
+            .initializedByPlugin(new TestDbInitialization())
+            .build();
+
+    @Before
+    public void setUp() throws Exception {
+        dbUpdate(prepared("INSERT INTO KEYED (WORD) VALUES (?), (?)", "one", "two"));
+        cache = builder().build();
+    }
+
+    @Test
+    public void testHit() throws Exception {
+        final long id = id("one");
+        assertThat(cache.find(id)).contains("one");
+        assertThat(cache.find(id)).contains("one");
+        assertThat(cache.getMisses()).isEqualTo(1);
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testNegativeCaching() throws Exception {
+        cache = builder().withMissTtl(60_000).build();
+        assertThat(cache.find(-1L)).isEmpty();
+        assertThat(cache.find(-1L)).isEmpty();
+        assertThat(cache.getHits()).isEqualTo(1);
+    }
+
+    @Test
+    public void testNegativeExpiry() throws Exception {
+        cache = builder().withMissTtl(50).build();
+        assertThat(cache.find(-1L)).isEmpty();
+        final long three = dbInsertGetGeneratedKeys(prepared("INSERT INTO KEYED (WORD) VALUES (?)", "three"),
+                rs -> rs.getLong(1), new String[]{"ID"}).findFirst().get();
+        assertThat(cache.find(three)).contains("three");
+        cache.find(-1L);
+        assertThat(cache.getHits()).isEqualTo(1);
+        Thread.sleep(100);
+        assertThat(cache.find(-1L)).isEmpty();
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(3);
+    }
+
+    @Test
+    public void testMissesNotCached() throws Exception {
+        assertThat(cache.find(-1L)).isEmpty();
+        assertThat(cache.find(-1L)).isEmpty();
+        assertThat(cache.getMisses()).isEqualTo(2);
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    public void testUpdateEvicts() throws Exception {
+        final long one = id("one");
+        final long two = id("two");
+        cache.find(one);
+        cache.find(two);
+        assertThat(cache.dbUpdate(one, prepared("UPDATE KEYED SET WORD = ? WHERE ID = ?", "uno", one))).isEqualTo(1);
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.find(one)).contains("uno");
+        assertThat(cache.find(two)).contains("two");
+        assertThat(cache.getHits()).isEqualTo(1);
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        cache = builder().withMissTtl(60_000).build();
+        cache.find(id("one"));
+        cache.find(-1L);
+        cache.invalidate(-1L);
+        assertThat(cache.size()).isEqualTo(1);
+        cache.invalidateAll();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    public void testLru() throws Exception {
+        cache = builder().withMaxSize(2).withSegments(1).withMissTtl(60_000).build();
+        final long one = id("one");
+        final long two = id("two");
+        cache.find(one);
+        cache.find(two);
+        cache.find(one);
+        cache.find(-1L);
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getEvictions()).isEqualTo(1);
+        cache.find(one);
+        assertThat(cache.getHits()).isEqualTo(2);
+    }
+
+    @Test
+    public void testBuilderBounds() {
+        assertThatThrownBy(() -> builder().withMaxSize(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> builder().withSegments(0)).isInstanceOf(IllegalArgumentException.class);
+        builder().withSegments(3).build();
+    }
+
+    @Test
+    public void testSegmentsWithinMaxSize() throws Exception {
+        cache = builder().withMaxSize(3).withSegments(64).build();
+        cache.find(id("one"));
+        cache.find(id("two"));
+        final long three = dbInsertGetGeneratedKeys(prepared("INSERT INTO KEYED (WORD) VALUES (?)", "three"),
+                rs -> rs.getLong(1), new String[]{"ID"}).findFirst().get();
+        final long four = dbInsertGetGeneratedKeys(prepared("INSERT INTO KEYED (WORD) VALUES (?)", "four"),
+                rs -> rs.getLong(1), new String[]{"ID"}).findFirst().get();
+        cache.find(three);
+        cache.find(four);
+        assertThat(cache.size()).isLessThanOrEqualTo(3);
+    }
+
+    @Override
+    public Connection getConnection() {
+        return embeddedDb.getConnection();
+    }
+
+    private KeyedCache.Builder<Long, String> builder() {
+        return KeyedCache.builder(this, id -> prepared("SELECT WORD FROM KEYED WHERE ID = ?", id),
+                rs -> rs.getString(1));
+    }
+
+    private long id(String word) throws Exception {
+        return dbFind(prepared("SELECT ID FROM KEYED WHERE WORD = ?", word), rs -> rs.getLong(1)).get();
+    }
+}
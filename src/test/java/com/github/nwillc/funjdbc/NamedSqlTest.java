@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class NamedSqlTest {
+
+    @Test
+    public void testCompile() {
+        final NamedSql namedSql = NamedSql.compile("SELECT * FROM FOO WHERE x = :x AND y = :y OR x = :x");
+        assertThat(namedSql.getSql()).isEqualTo("SELECT * FROM FOO WHERE x = ? AND y = ? OR x = ?");
+        assertThat(namedSql.getIndexes().get("x")).containsExactly(1, 3);
+        assertThat(namedSql.getIndexes().get("y")).containsExactly(2);
+    }
+
+    @Test
+    public void testCached() {
+        final String sql = "SELECT * FROM FOO WHERE x = :x";
+        assertThat(NamedSql.compile(sql)).isSameAs(NamedSql.compile(sql));
+    }
+
+    @Test
+    public void testIgnoresQuotesCommentsAndCasts() {
+        final String sql = "SELECT ':a', \":b\", c::text FROM FOO -- :d\nWHERE e = :e /* :f */";
+        assertThat(NamedSql.compile(sql).getSql())
+                .isEqualTo("SELECT ':a', \":b\", c::text FROM FOO -- :d\nWHERE e = ? /* :f */");
+    }
+
+    @Test
+    public void testArguments() {
+        final Map<String, Object> values = new HashMap<>();
+        values.put("x", 1);
+        values.put("y", null);
+        values.put("unused", "z");
+        final Object[] args = NamedSql.compile("SELECT * FROM FOO WHERE x = :x AND y = :y OR x = :x").arguments(values);
+        assertThat(args).containsExactly(1, null, 1);
+    }
+
+    @Test
+    public void testMissingArgument() {
+        assertThatThrownBy(() -> NamedSql.compile("SELECT * FROM FOO WHERE x = :x").arguments(new HashMap<>()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining(":x");
+    }
+}
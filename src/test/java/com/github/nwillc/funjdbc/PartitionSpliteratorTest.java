@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.zapodot.junit.db.EmbeddedDatabaseRule;
+
+import java.sql.Connection;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static com.github.nwillc.funjdbc.SqlStatement.prepared;
+import static com.github.nwillc.funjdbc.SqlStatement.sql;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PartitionSpliteratorTest implements DbAccessor {
+    private final AtomicInteger connections = new AtomicInteger();
+
+    @Rule
+    public final EmbeddedDatabaseRule embeddedDb = EmbeddedDatabaseRule
+            .builder()
+            .initializedByPlugin(new TestDbInitialization())
+            .build();
+
+    @Before
+    public void setUp() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            dbUpdate(sql("INSERT INTO KEYED(WORD) VALUES('w')"));
+        }
+        connections.set(0);
+    }
+
+    @Test
+    public void testPartitionBounds() {
+        final SqlStatement[] partitions = PartitionSpliterator.of(this, sql("SELECT * FROM KEYED"), "ID",
+                1, 10, 3, rs -> rs.getLong(1)).getPartitions();
+        assertThat(partitions).hasSize(3);
+        assertThat(partitions[0].getSql()).isEqualTo("SELECT * FROM (SELECT * FROM KEYED) p WHERE p.ID BETWEEN ? AND ?");
+    }
+
+    @Test
+    public void testFewerKeysThanPartitions() {
+        assertThat(PartitionSpliterator.of(this, sql("SELECT * FROM KEYED"), "ID", 1, 2, 8, rs -> rs.getLong(1))
+                .getPartitions()).hasSize(2);
+    }
+
+    @Test
+    public void testSequential() {
+        try (Stream<Long> ids = dbQueryPartitioned(sql("SELECT ID FROM KEYED"), "ID", 1, 100, 4,
+                rs -> rs.getLong(1))) {
+            final List<Long> list = ids.collect(Collectors.toList());
+            assertThat(list).containsOnlyElementsOf(LongStream.rangeClosed(1, 100).boxed().collect(Collectors.toList()));
+            assertThat(list.stream().map(id -> (id - 1) / 25).collect(Collectors.toList())).isSorted();
+        }
+        assertThat(connections.get()).isEqualTo(4);
+    }
+
+    @Test
+    public void testParallel() {
+        try (Stream<Long> ids = dbQueryPartitioned(prepared("SELECT ID FROM KEYED WHERE WORD = ?", "w"), "ID",
+                1, 100, 8, rs -> rs.getLong(1))) {
+            final List<Long> list = ids.parallel().map(id -> id * 2).collect(Collectors.toList());
+            assertThat(list).hasSize(100);
+            assertThat(list).contains(2L, 200L);
+            assertThat(list.get(0)).isLessThanOrEqualTo(50L);
+        }
+    }
+
+    @Test
+    public void testSplitsOnPartitions() {
+        final Spliterator<Long> spliterator = PartitionSpliterator.of(this, sql("SELECT ID FROM KEYED"), "ID",
+                1, 100, 2, rs -> rs.getLong(1));
+        final Spliterator<Long> prefix = spliterator.trySplit();
+        assertThat(prefix).isNotNull();
+        assertThat(spliterator.trySplit()).isNull();
+        assertThat(spliterator.hasCharacteristics(Spliterator.ORDERED)).isTrue();
+        assertThat(connections.get()).isEqualTo(0);
+    }
+
+    @Test
+    public void testCloseReleasesPartition() {
+        final Stream<Long> ids = dbQueryPartitioned(sql("SELECT ID FROM KEYED"), "ID", 1, 100, 4, rs -> rs.getLong(1));
+        assertThat(ids.iterator().next()).isBetween(1L, 25L);
+        ids.close();
+        assertThat(connections.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testBadArguments() {
+        assertThatThrownBy(() -> dbQueryPartitioned(sql("SELECT ID FROM KEYED"), "ID", 1, 100, 0, rs -> rs.getLong(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> dbQueryPartitioned(sql("SELECT ID FROM KEYED"), "ID", 10, 1, 2, rs -> rs.getLong(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testBadQuery() {
+        assertThatThrownBy(() -> dbQueryPartitioned(sql("blah"), "ID", 1, 100, 2, rs -> rs.getLong(1)).count())
+                .isInstanceOf(UncheckedSQLException.class);
+    }
+
+    @Override
+    public Connection getConnection() {
+        connections.incrementAndGet();
+        return embeddedDb.getConnection();
+    }
+}
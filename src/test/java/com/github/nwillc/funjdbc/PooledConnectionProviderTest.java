@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.zapodot.junit.db.EmbeddedDatabaseRule;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static com.github.nwillc.funjdbc.SqlStatement.sql;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PooledConnectionProviderTest {
+    private PooledConnectionProvider pool;
+
+    @Rule
+    public final EmbeddedDatabaseRule embeddedDb = EmbeddedDatabaseRule
+            .builder()
+            .initializedByPlugin(new TestDbInitialization())
+            .build();
+
+    @Before
+    public void setUp() throws Exception {
+        pool = builder().withMinSize(1).withMaxSize(3).withBorrowTimeout(200).build();
+    }
+
+    @After
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    public void testMinSize() {
+        assertThat(pool.getTotal()).isEqualTo(1);
+        assertThat(pool.getIdle()).isEqualTo(1);
+        assertThat(pool.getActive()).isEqualTo(0);
+        assertThat(pool.getCreated()).isEqualTo(1);
+    }
+
+    @Test
+    public void testReuse() throws Exception {
+        final Connection first = pool.getConnection();
+        first.close();
+        assertThat(first.isClosed()).isTrue();
+        try (Connection second = pool.getConnection()) {
+            assertThat(second.isClosed()).isFalse();
+            assertThat(pool.getActive()).isEqualTo(1);
+        }
+        assertThat(pool.getCreated()).isEqualTo(1);
+        assertThat(pool.getBorrows()).isEqualTo(2);
+        assertThat(pool.getAffinityHits()).isEqualTo(1);
+    }
+
+    @Test
+    public void testReturnedConnectionUnusable() throws Exception {
+        final Connection connection = pool.getConnection();
+        connection.close();
+        connection.close();
+        assertThatThrownBy(connection::createStatement).isInstanceOf(SQLException.class);
+        assertThat(pool.getActive()).isEqualTo(0);
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        final List<Connection> held = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            held.add(pool.getConnection());
+        }
+        assertThat(pool.getTotal()).isEqualTo(3);
+        assertThatThrownBy(pool::getConnection).isInstanceOf(SQLException.class);
+        assertThat(pool.getTimeouts()).isEqualTo(1);
+        for (Connection connection : held) {
+            connection.close();
+        }
+        assertThat(pool.getIdle()).isEqualTo(3);
+    }
+
+    @Test
+    public void testRollbackOnReturn() throws Exception {
+        try (Connection connection = pool.getConnection()) {
+            connection.setAutoCommit(false);
+            connection.createStatement().execute("INSERT INTO WORDS (WORD) VALUES ('c')");
+        }
+        try (Connection connection = pool.getConnection()) {
+            assertThat(connection.getAutoCommit()).isTrue();
+        }
+        final DbAccessor accessor = () -> pool.getConnection();
+        assertThat(accessor.dbFind(sql("SELECT COUNT(*) FROM WORDS"), rs -> rs.getLong(1))).contains(3L);
+    }
+
+    @Test
+    public void testBrokenDiscarded() throws Exception {
+        final Connection connection = pool.getConnection();
+        connection.unwrap(Connection.class).close();
+        connection.close();
+        assertThat(pool.getTotal()).isEqualTo(0);
+        try (Connection next = pool.getConnection()) {
+            assertThat(next.isValid(1)).isTrue();
+        }
+        assertThat(pool.getCreated()).isEqualTo(2);
+    }
+
+    @Test
+    public void testConcurrentBorrowers() throws Exception {
+        pool.close();
+        pool = builder().withMaxSize(3).withBorrowTimeout(5000).build();
+        final DbAccessor accessor = () -> pool.getConnection();
+        final ExecutorService executor = Executors.newFixedThreadPool(16);
+        final List<Future<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            futures.add(executor.submit(() -> accessor.dbFind(sql("SELECT COUNT(*) FROM WORDS"), rs -> rs.getLong(1))
+                    .orElse(0L)));
+        }
+        for (Future<Long> future : futures) {
+            assertThat(future.get()).isEqualTo(3L);
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(pool.getTotal()).isLessThanOrEqualTo(3);
+        assertThat(pool.getActive()).isEqualTo(0);
+        assertThat(pool.getBorrows()).isEqualTo(64);
+    }
+
+    @Test
+    public void testLeakDetection() throws Exception {
+        pool.close();
+        pool = builder().withMaxSize(1).withLeakTimeout(20).build();
+        final List<String> warnings = new CopyOnWriteArrayList<>();
+        final Handler handler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                warnings.add(record.getMessage());
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Logger.getLogger("").addHandler(handler);
+        try (Connection ignored = pool.getConnection()) {
+            Thread.sleep(200);
+            assertThat(pool.getLeaks()).isEqualTo(1);
+        } finally {
+            Logger.getLogger("").removeHandler(handler);
+        }
+        assertThat(warnings).anySatisfy(warning ->
+                assertThat(warning).contains("possible leak at " + getClass().getName() + ".testLeakDetection"));
+    }
+
+    @Test
+    public void testSettingsResetOnReturn() throws Exception {
+        final int isolation;
+        try (Connection connection = pool.getConnection()) {
+            isolation = connection.getTransactionIsolation();
+            connection.setReadOnly(true);
+            connection.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+        }
+        try (Connection connection = pool.getConnection()) {
+            assertThat(pool.getCreated()).isEqualTo(1);
+            assertThat(connection.isReadOnly()).isFalse();
+            assertThat(connection.getTransactionIsolation()).isEqualTo(isolation);
+        }
+    }
+
+    @Test
+    public void testClosed() {
+        pool.close();
+        assertThat(pool.getTotal()).isEqualTo(0);
+        assertThatThrownBy(pool::getConnection).isInstanceOf(SQLException.class);
+    }
+
+    @Test
+    public void testBadSizes() {
+        assertThatThrownBy(() -> builder().withMaxSize(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> builder().withMinSize(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> builder().withMinSize(5).withMaxSize(2).build())
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PooledConnectionProvider.builder(null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private PooledConnectionProvider.Builder builder() {
+        final String url = embeddedDb.getConnectionJdbcUrl();
+        return PooledConnectionProvider.builder(() -> DriverManager.getConnection(url));
+    }
+}
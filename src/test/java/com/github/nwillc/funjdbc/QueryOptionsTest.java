@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.zapodot.junit.db.EmbeddedDatabaseRule;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class QueryOptionsTest {
+    @Rule
+    public final EmbeddedDatabaseRule embeddedDb = EmbeddedDatabaseRule
+            .builder()
+            .initializedByPlugin(new TestDbInitialization())
+            .build();
+
+    @Test
+    public void testDefaults() {
+        final QueryOptions options = QueryOptions.DEFAULT;
+        assertThat(options.getFetchSize()).isEqualTo(0);
+        assertThat(options.getMaxRows()).isEqualTo(0);
+        assertThat(options.getResultSetType()).isEqualTo(0);
+        assertThat(options.getConcurrency()).isEqualTo(0);
+        assertThat(options.getAutoCommit()).isNull();
+    }
+
+    @Test
+    public void testStreaming() {
+        final QueryOptions options = QueryOptions.streaming(100);
+        assertThat(options.getFetchSize()).isEqualTo(100);
+        assertThat(options.getResultSetType()).isEqualTo(ResultSet.TYPE_FORWARD_ONLY);
+        assertThat(options.getConcurrency()).isEqualTo(ResultSet.CONCUR_READ_ONLY);
+        assertThat(options.getAutoCommit()).isFalse();
+    }
+
+    @Test
+    public void testEquality() {
+        final QueryOptions options = QueryOptions.DEFAULT.withMaxRows(5);
+        assertThat(options).isEqualTo(QueryOptions.DEFAULT.withMaxRows(5));
+        assertThat(options.hashCode()).isEqualTo(QueryOptions.DEFAULT.withMaxRows(5).hashCode());
+        assertThat(options).isNotEqualTo(QueryOptions.DEFAULT);
+        assertThat(options).isNotEqualTo(null);
+        assertThat(options.toString()).contains("maxRows=5");
+    }
+
+    @Test
+    public void testPrefetch() {
+        assertThat(QueryOptions.DEFAULT.getPrefetch()).isEqualTo(0);
+        assertThat(QueryOptions.DEFAULT.withPrefetch(64).getPrefetch()).isEqualTo(64);
+        assertThat(QueryOptions.DEFAULT.withPrefetch(64)).isNotEqualTo(QueryOptions.DEFAULT);
+    }
+
+    @Test
+    public void testNegative() {
+        assertThatThrownBy(() -> QueryOptions.DEFAULT.withPrefetch(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> QueryOptions.DEFAULT.withFetchSize(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> QueryOptions.DEFAULT.withMaxRows(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testPrepare() throws Exception {
+        try (Connection connection = embeddedDb.getConnection();
+             PreparedStatement statement = QueryOptions.streaming(7).withMaxRows(2).prepare(connection, "SELECT 1")) {
+            assertThat(statement.getFetchSize()).isEqualTo(7);
+            assertThat(statement.getMaxRows()).isEqualTo(2);
+            assertThat(statement.getResultSetType()).isEqualTo(ResultSet.TYPE_FORWARD_ONLY);
+        }
+    }
+
+    @Test
+    public void testAutoCommitRestored() throws Exception {
+        try (Connection connection = embeddedDb.getConnection()) {
+            connection.setAutoCommit(true);
+            final Boolean previous = QueryOptions.streaming(1).configure(connection);
+            assertThat(previous).isTrue();
+            assertThat(connection.getAutoCommit()).isFalse();
+            QueryOptions.restore(connection, previous);
+            assertThat(connection.getAutoCommit()).isTrue();
+            assertThat(QueryOptions.DEFAULT.configure(connection)).isNull();
+        }
+    }
+}
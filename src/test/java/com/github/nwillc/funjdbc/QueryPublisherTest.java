@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc;
+
+import com.github.nwillc.funjdbc.functions.Flow;
+import org.junit.Rule;
+import org.junit.Test;
+import org.zapodot.junit.db.EmbeddedDatabaseRule;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.nwillc.funjdbc.SqlStatement.sql;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class QueryPublisherTest implements DbAccessor {
+    private int connections;
+
+    @Rule
+    public final EmbeddedDatabaseRule embeddedDb = EmbeddedDatabaseRule
+            .builder()
+            .initializedByPlugin(new TestDbInitialization())
+            .build();
+
+    @Test
+    public void testOneAtATime() {
+        final TestSubscriber subscriber = new TestSubscriber(1, Long.MAX_VALUE);
+        dbPublish(sql("SELECT WORD FROM WORDS ORDER BY WORD"), rs -> rs.getString(1), Runnable::run)
+                .subscribe(subscriber);
+        assertThat(subscriber.items).containsExactly("a", "a", "b");
+        assertThat(subscriber.completed).isTrue();
+        assertThat(subscriber.error).isNull();
+    }
+
+    @Test
+    public void testNoDemandNoQuery() {
+        final TestSubscriber subscriber = new TestSubscriber(0, Long.MAX_VALUE);
+        dbPublish(sql("SELECT WORD FROM WORDS"), rs -> rs.getString(1), Runnable::run).subscribe(subscriber);
+        assertThat(connections).isEqualTo(0);
+        subscriber.subscription.request(2);
+        assertThat(subscriber.items).hasSize(2);
+        assertThat(subscriber.completed).isFalse();
+        subscriber.subscription.request(2);
+        assertThat(subscriber.items).hasSize(3);
+        assertThat(subscriber.completed).isTrue();
+        assertThat(connections).isEqualTo(1);
+    }
+
+    @Test
+    public void testCancel() {
+        final TestSubscriber subscriber = new TestSubscriber(5, 1);
+        dbPublish(sql("SELECT WORD FROM WORDS"), rs -> rs.getString(1), Runnable::run).subscribe(subscriber);
+        assertThat(subscriber.items).hasSize(1);
+        assertThat(subscriber.completed).isFalse();
+        assertThat(subscriber.error).isNull();
+    }
+
+    @Test
+    public void testFailure() {
+        final TestSubscriber subscriber = new TestSubscriber(1, Long.MAX_VALUE);
+        dbPublish(sql("blah"), rs -> rs.getString(1), Runnable::run).subscribe(subscriber);
+        assertThat(subscriber.error).isInstanceOf(SQLException.class);
+        assertThat(subscriber.completed).isFalse();
+    }
+
+    @Test
+    public void testBadRequest() {
+        final TestSubscriber subscriber = new TestSubscriber(0, Long.MAX_VALUE);
+        dbPublish(sql("SELECT WORD FROM WORDS"), rs -> rs.getString(1), Runnable::run).subscribe(subscriber);
+        subscriber.subscription.request(-1);
+        assertThat(subscriber.error).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testAsynchronous() throws Exception {
+        final TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE, Long.MAX_VALUE);
+        dbPublish(sql("SELECT WORD FROM WORDS"), rs -> rs.getString(1)).subscribe(subscriber);
+        assertThat(subscriber.done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(subscriber.items).hasSize(3);
+    }
+
+    @Override
+    public Connection getConnection() {
+        connections++;
+        return embeddedDb.getConnection();
+    }
+
+    private static class TestSubscriber implements Flow.Subscriber<String> {
+        final List<String> items = new ArrayList<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        final long batch;
+        final long cancelAfter;
+        Flow.Subscription subscription;
+        boolean completed;
+        Throwable error;
+
+        TestSubscriber(long batch, long cancelAfter) {
+            this.batch = batch;
+            this.cancelAfter = cancelAfter;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (batch > 0) {
+                subscription.request(batch);
+            }
+        }
+
+        @Override
+        public void onNext(String item) {
+            items.add(item);
+            if (items.size() >= cancelAfter) {
+                subscription.cancel();
+            } else if (batch == 1) {
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            done.countDown();
+        }
+    }
+}
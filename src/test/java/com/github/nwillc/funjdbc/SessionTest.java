@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.zapodot.junit.db.EmbeddedDatabaseRule;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static com.github.nwillc.funjdbc.SqlStatement.in;
+import static com.github.nwillc.funjdbc.SqlStatement.prepared;
+import static com.github.nwillc.funjdbc.SqlStatement.sql;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SessionTest implements DbAccessor {
+    private final AtomicInteger connections = new AtomicInteger();
+
+    @Rule
+    public final EmbeddedDatabaseRule embeddedDb = EmbeddedDatabaseRule
+            .builder()
+            .initializedByPlugin(new TestDbInitialization())
+            .build();
+
+    @Before
+    public void setUp() {
+        connections.set(0);
+    }
+
+    @Test
+    public void testSessionSharesConnection() throws Exception {
+        final Long count = dbSession(session -> {
+            final Connection first = session.getConnection();
+            assertThat(session.dbFind(sql("SELECT COUNT(*) FROM WORDS"), rs -> rs.getLong(1))).contains(3L);
+            assertThat(session.dbFind(prepared("SELECT COUNT(*) FROM WORDS WHERE WORD = ?", "a"), rs -> rs.getLong(1)))
+                    .contains(2L);
+            assertThat(session.getConnection()).isSameAs(first);
+            assertThat(first.isClosed()).isFalse();
+            return session.dbFind(sql("SELECT COUNT(*) FROM WORDS"), rs -> rs.getLong(1)).orElse(0L);
+        });
+        assertThat(count).isEqualTo(3L);
+        assertThat(connections.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testSessionCachesStatements() throws Exception {
+        dbSession(session -> {
+            session.dbUpdate(prepared("UPDATE WORDS SET WORD = ? WHERE WORD = ?", "c", "d"));
+            session.dbUpdate(prepared("UPDATE WORDS SET WORD = ? WHERE WORD = ?", "c", "d"));
+            assertThat(session.getStatementCache().getHits()).isEqualTo(1);
+            return null;
+        });
+    }
+
+    @Test
+    public void testSessionClosed() throws Exception {
+        final DbAccessor leaked = dbSession(session -> session);
+        assertThatThrownBy(leaked::getConnection).isInstanceOf(SQLException.class);
+    }
+
+    @Test
+    public void testTransactionCommits() throws Exception {
+        final int updated = dbTransaction(tx -> tx.dbUpdate(sql("INSERT INTO WORDS (WORD) VALUES ('c')")));
+        assertThat(updated).isEqualTo(1);
+        assertThat(dbFind(sql("SELECT COUNT(*) FROM WORDS"), rs -> rs.getLong(1))).contains(4L);
+    }
+
+    @Test
+    public void testTransactionRollsBack() throws Exception {
+        assertThatThrownBy(() -> dbTransaction(tx -> {
+            tx.dbUpdate(sql("INSERT INTO WORDS (WORD) VALUES ('c')"));
+            return tx.dbUpdate(sql("INSERT INTO NOWHERE (WORD) VALUES ('c')"));
+        })).isInstanceOf(SQLException.class);
+        assertThat(dbFind(sql("SELECT COUNT(*) FROM WORDS"), rs -> rs.getLong(1))).contains(3L);
+    }
+
+    @Test
+    public void testTransactionRollsBackOnRuntimeException() {
+        assertThatThrownBy(() -> dbTransaction(tx -> {
+            tx.dbUpdate(sql("INSERT INTO WORDS (WORD) VALUES ('c')"));
+            throw new IllegalStateException("abort");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(connections.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testNestedTransactionJoins() throws Exception {
+        assertThatThrownBy(() -> dbTransaction(tx -> {
+            tx.dbTransaction(inner -> inner.dbUpdate(sql("INSERT INTO WORDS (WORD) VALUES ('c')")));
+            throw new SQLException("abort");
+        })).isInstanceOf(SQLException.class);
+        assertThat(dbFind(sql("SELECT COUNT(*) FROM WORDS"), rs -> rs.getLong(1))).contains(3L);
+    }
+
+    @Test
+    public void testTransactionInSession() throws Exception {
+        dbSession(session -> {
+            session.dbTransaction(tx -> tx.dbUpdate(sql("INSERT INTO WORDS (WORD) VALUES ('c')")));
+            assertThat(session.getConnection().getAutoCommit()).isTrue();
+            return null;
+        });
+        assertThat(dbFind(sql("SELECT COUNT(*) FROM WORDS"), rs -> rs.getLong(1))).contains(4L);
+    }
+
+    @Test
+    public void testTransactionCommitsWithoutAutoCommit() throws Exception {
+        final DbAccessor manual = () -> {
+            final Connection connection = embeddedDb.getConnection();
+            connection.setAutoCommit(false);
+            return connection;
+        };
+        manual.dbTransaction(tx -> tx.dbUpdate(sql("INSERT INTO WORDS (WORD) VALUES ('c')")));
+        manual.dbSession(session -> {
+            session.getConnection().rollback();
+            session.dbTransaction(tx -> null);
+            assertThat(session.getConnection().getAutoCommit()).isFalse();
+            return null;
+        });
+        assertThat(dbFind(sql("SELECT COUNT(*) FROM WORDS"), rs -> rs.getLong(1))).contains(4L);
+    }
+
+    @Test
+    public void testKeyedEnrichInTransaction() throws Exception {
+        final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        final Map<String, Integer> counts = new HashMap<>();
+        counts.put("a", 0);
+        counts.put("b", 0);
+        dbTransaction(tx -> {
+            tx.dbEnrich(null, keys -> prepared("SELECT WORD FROM WORDS WHERE WORD IN (?)", in(keys, 1)),
+                    rs -> rs.getString(1), counts, (count, rs) -> threads.add(Thread.currentThread()),
+                    EnrichOptions.DEFAULT);
+            return null;
+        });
+        assertThat(threads).containsExactly(Thread.currentThread());
+        assertThat(connections.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testPartitionedInTransaction() throws Exception {
+        final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        final long rows = dbTransaction(tx -> {
+            tx.dbUpdate(sql("INSERT INTO KEYED (WORD) VALUES ('one'), ('two'), ('three'), ('four')"));
+            try (Stream<String> stream = tx.dbQueryPartitioned(sql("SELECT ID, WORD FROM KEYED"), "ID", 1, 4, 4,
+                    rs -> {
+                        threads.add(Thread.currentThread());
+                        return rs.getString("WORD");
+                    })) {
+                return stream.parallel().count();
+            }
+        });
+        assertThat(rows).isEqualTo(4);
+        assertThat(threads).containsExactly(Thread.currentThread());
+        assertThat(connections.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testTransactionIsolationRestored() throws Exception {
+        dbSession(session -> {
+            final int isolation = session.getConnection().getTransactionIsolation();
+            session.dbTransaction(Connection.TRANSACTION_SERIALIZABLE, tx -> {
+                assertThat(tx.getConnection().getTransactionIsolation()).isEqualTo(Connection.TRANSACTION_SERIALIZABLE);
+                return null;
+            });
+            assertThat(session.getConnection().getTransactionIsolation()).isEqualTo(isolation);
+            return null;
+        });
+    }
+
+    @Override
+    public Connection getConnection() {
+        connections.incrementAndGet();
+        return embeddedDb.getConnection();
+    }
+}
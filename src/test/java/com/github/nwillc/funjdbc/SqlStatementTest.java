@@ -19,8 +19,18 @@ package com.github.nwillc.funjdbc;
 
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.github.nwillc.funjdbc.SqlStatement.in;
+import static com.github.nwillc.funjdbc.SqlStatement.named;
+import static com.github.nwillc.funjdbc.SqlStatement.prepared;
 import static com.github.nwillc.funjdbc.SqlStatement.sql;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 
 public class SqlStatementTest {
@@ -77,4 +87,69 @@ public class SqlStatementTest {
         assertThat(sql).isInstanceOf(SqlStatement.class);
         assertThat(sql.toString()).isEqualTo(SELECT_1);
     }
+
+    @Test
+    public void testNotParameterized() {
+        assertThat(sql(SELECT_1).isParameterized()).isFalse();
+    }
+
+    @Test
+    public void testPreparedSqlConstant() {
+        final String sql = "SELECT * FROM FOO WHERE x = ? AND y = ?";
+        final SqlStatement sqlStatement = prepared(sql, "foo", 10);
+
+        assertThat(sqlStatement.isParameterized()).isTrue();
+        assertThat(sqlStatement.getSql()).isEqualTo(sql);
+        sqlStatement.setArgs("bar", 20);
+        assertThat(sqlStatement.getSql()).isEqualTo(sql);
+    }
+
+    @Test
+    public void testNamed() {
+        final SqlStatement sqlStatement = named("SELECT * FROM FOO WHERE x = :x", Collections.singletonMap("x", 1));
+        assertThat(sqlStatement.isParameterized()).isTrue();
+        assertThat(sqlStatement.getSql()).isEqualTo("SELECT * FROM FOO WHERE x = ?");
+    }
+
+    @Test
+    public void testSqlWithMapStillFormats() {
+        final SqlStatement sqlStatement = sql("SELECT * FROM FOO WHERE x = '%s'", Collections.singletonMap("x", 1));
+        assertThat(sqlStatement.isParameterized()).isFalse();
+        assertThat(sqlStatement.getSql()).isEqualTo("SELECT * FROM FOO WHERE x = '{x=1}'");
+    }
+
+    @Test
+    public void testInListBuckets() {
+        final String sql = "SELECT * FROM FOO WHERE x IN (?)";
+        assertThat(prepared(sql, in(Collections.singletonList(1))).getSql()).isEqualTo("SELECT * FROM FOO WHERE x IN (?)");
+        assertThat(prepared(sql, in(Arrays.asList(1, 2, 3))).getSql()).isEqualTo("SELECT * FROM FOO WHERE x IN (?, ?, ?, ?)");
+        assertThat(prepared(sql, in(Arrays.asList(1, 2, 3, 4))).getSql()).isEqualTo("SELECT * FROM FOO WHERE x IN (?, ?, ?, ?)");
+        assertThat(prepared(sql, in(Collections.emptyList())).getSql()).isEqualTo("SELECT * FROM FOO WHERE x IN (?)");
+    }
+
+    @Test
+    public void testInListSplit() {
+        final SqlStatement sqlStatement = prepared("SELECT * FROM FOO WHERE y = ? AND x IN (?)", "y", in(Arrays.asList(1, 2, 3, 4, 5), 4));
+        assertThat(sqlStatement.isSplit()).isTrue();
+        final List<SqlStatement> statements = sqlStatement.expand();
+        assertThat(statements).hasSize(2);
+        assertThat(statements.get(0).getSql()).isEqualTo("SELECT * FROM FOO WHERE y = ? AND x IN (?, ?, ?, ?)");
+        assertThat(statements.get(1).getSql()).isEqualTo("SELECT * FROM FOO WHERE y = ? AND x IN (?)");
+        assertThatThrownBy(sqlStatement::getSql).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void testInListPlaceholderMismatch() {
+        assertThatThrownBy(() -> prepared("SELECT * FROM FOO WHERE x IN (?) AND y = ?", in(Arrays.asList(1, 2))).getSql())
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testNamedCollection() {
+        final Map<String, Object> values = new HashMap<>();
+        values.put("xs", Arrays.asList(1, 2, 3));
+        values.put("y", 1);
+        final SqlStatement sqlStatement = named("SELECT * FROM FOO WHERE x IN (:xs) AND y = :y", values);
+        assertThat(sqlStatement.getSql()).isEqualTo("SELECT * FROM FOO WHERE x IN (?, ?, ?, ?) AND y = ?");
+    }
 }
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc;
+
+import org.junit.Test;
+
+import java.util.MissingFormatArgumentException;
+import java.util.UnknownFormatConversionException;
+
+import static com.github.nwillc.funjdbc.SqlTemplate.template;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SqlTemplateTest {
+
+    @Test
+    public void testCached() {
+        final String sql = "SELECT * FROM FOO WHERE x = %d";
+        assertThat(template(sql)).isSameAs(template(sql));
+    }
+
+    @Test
+    public void testRenderSimple() {
+        final String sql = "SELECT * FROM FOO WHERE x = '%s' AND y = %d";
+        assertThat(template(sql).render("foo", 10)).isEqualTo(String.format(sql, "foo", 10));
+        assertThat(template(sql).render("bar", 20L)).isEqualTo(String.format(sql, "bar", 20L));
+    }
+
+    @Test
+    public void testRenderNoArgs() {
+        final String sql = "SELECT * FROM FOO WHERE x LIKE 'a%'";
+        assertThat(template(sql).render()).isEqualTo(sql);
+        assertThat(template(sql).render((Object[]) null)).isEqualTo(sql);
+    }
+
+    @Test
+    public void testRenderComplex() {
+        final String sql = "SELECT %2$s, %1$s, %<s FROM FOO WHERE x = %5d AND y > %.2f AND z = '100%%'";
+        // ordinary specifiers index from the first argument, regardless of explicit indexes before them
+        assertThat(template(sql).render(42, 3.14159)).isEqualTo(String.format(sql, 42, 3.14159))
+                .isEqualTo("SELECT 3.14159, 42, 42 FROM FOO WHERE x =    42 AND y > 3.14 AND z = '100%'");
+    }
+
+    @Test
+    public void testRenderNull() {
+        assertThat(template("x = %s").render((Object) null)).isEqualTo("x = null");
+    }
+
+    @Test
+    public void testMissingArgument() {
+        assertThatThrownBy(() -> template("x = %s AND y = %s").render("a"))
+                .isInstanceOf(MissingFormatArgumentException.class);
+    }
+
+    @Test
+    public void testBadFormat() {
+        assertThatThrownBy(() -> template("x LIKE 'a%' AND y = %s").render("a"))
+                .isInstanceOf(UnknownFormatConversionException.class);
+    }
+
+    @Test
+    public void testWith() {
+        final SqlTemplate template = template("SELECT * FROM FOO WHERE x = %d");
+        final SqlStatement one = template.with(1);
+        final SqlStatement two = template.with(2);
+        assertThat(one.getSql()).isEqualTo("SELECT * FROM FOO WHERE x = 1");
+        assertThat(two.getSql()).isEqualTo("SELECT * FROM FOO WHERE x = 2");
+        assertThat(one.isParameterized()).isFalse();
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc;
+
+import com.github.nwillc.funjdbc.functions.Extractor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.zapodot.junit.db.EmbeddedDatabaseRule;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static com.github.nwillc.funjdbc.SqlStatement.prepared;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class StatementCacheTest implements DbAccessor {
+    private static final Extractor<String> WORD_EXTRACTOR = rs -> rs.getString(1);
+    private StatementCache cache;
+
+    @Rule
+    public final EmbeddedDatabaseRule embeddedDb = EmbeddedDatabaseRule
+            .builder()
+            .initializedByPlugin(new TestDbInitialization())
+            .build();
+
+    @Before
+    public void setUp() {
+        cache = new StatementCache(2);
+    }
+
+    @After
+    public void tearDown() {
+        cache.clear();
+    }
+
+    @Test
+    public void testNegativeCapacity() {
+        assertThatThrownBy(() -> new StatementCache(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testNoneDoesNotCache() throws Exception {
+        final Connection connection = getConnection();
+        final PreparedStatement statement = StatementCache.NONE.prepare(connection, "SELECT 1");
+        StatementCache.NONE.release(statement);
+        assertThat(statement.isClosed()).isTrue();
+        assertThat(StatementCache.NONE.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testReuse() throws Exception {
+        final Connection connection = getConnection();
+        final PreparedStatement first = cache.prepare(connection, "SELECT 1");
+        cache.release(first);
+        final PreparedStatement second = cache.prepare(connection, "SELECT 1");
+        assertThat(second).isSameAs(first);
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(1);
+        cache.release(second);
+        assertThat(second.isClosed()).isFalse();
+    }
+
+    @Test
+    public void testKeyedByOptions() throws Exception {
+        final Connection connection = getConnection();
+        final QueryOptions options = QueryOptions.DEFAULT.withFetchSize(10);
+        final PreparedStatement first = cache.prepare(connection, "SELECT 1", options);
+        cache.release(first);
+        final PreparedStatement other = cache.prepare(connection, "SELECT 1");
+        assertThat(other).isNotSameAs(first);
+        cache.release(other);
+        final PreparedStatement second = cache.prepare(connection, "SELECT 1", QueryOptions.DEFAULT.withFetchSize(10));
+        assertThat(second).isSameAs(first);
+        assertThat(second.getFetchSize()).isEqualTo(10);
+        cache.release(second);
+    }
+
+    @Test
+    public void testCheckedOutNotShared() throws Exception {
+        final Connection connection = getConnection();
+        final PreparedStatement first = cache.prepare(connection, "SELECT 1");
+        final PreparedStatement second = cache.prepare(connection, "SELECT 1");
+        assertThat(second).isNotSameAs(first);
+        cache.release(first);
+        cache.release(second);
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(first.isClosed()).isTrue();
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        final Connection connection = getConnection();
+        final PreparedStatement eldest = cache.prepare(connection, "SELECT 1");
+        cache.release(eldest);
+        cache.release(cache.prepare(connection, "SELECT 2"));
+        cache.release(cache.prepare(connection, "SELECT 3"));
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getEvictions()).isEqualTo(1);
+        assertThat(eldest.isClosed()).isTrue();
+    }
+
+    @Test
+    public void testReleaseUncached() throws Exception {
+        final PreparedStatement statement = getConnection().prepareStatement("SELECT 1");
+        cache.release(statement);
+        assertThat(statement.isClosed()).isTrue();
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testDbAccessorReuse() throws Exception {
+        final SqlStatement find = prepared("SELECT WORD FROM WORDS WHERE WORD = ?", "b");
+        Optional<String> word = dbFind(find, WORD_EXTRACTOR);
+        assertThat(word).contains("b");
+        word = dbFind(find, WORD_EXTRACTOR);
+        assertThat(word).contains("b");
+        try (Stream<String> words = dbQuery(find, WORD_EXTRACTOR)) {
+            assertThat(words.count()).isEqualTo(1);
+        }
+        try (Stream<String> words = dbQuery(find, WORD_EXTRACTOR)) {
+            assertThat(words.count()).isEqualTo(1);
+        }
+        // dbFind prepares with its own single row options, so doesn't share dbQuery's statement
+        assertThat(cache.getMisses()).isEqualTo(2);
+        assertThat(cache.getHits()).isEqualTo(2);
+    }
+
+    @Test
+    public void testReuseAcrossWrappers() throws Exception {
+        final Connection first = getConnection();
+        final Connection second = getConnection();
+        assertThat(second).isNotSameAs(first);
+        final PreparedStatement statement = cache.prepare(first, "SELECT 1");
+        cache.release(statement);
+        assertThat(cache.prepare(second, "SELECT 1")).isSameAs(statement);
+    }
+
+    @Test
+    public void testReuseAcrossPoolBorrows() throws Exception {
+        try (PooledConnectionProvider pool = PooledConnectionProvider.builder(this).withMaxSize(1).build()) {
+            PreparedStatement statement;
+            try (Connection connection = pool.getConnection()) {
+                statement = cache.prepare(connection, "SELECT 1");
+                cache.release(statement);
+            }
+            try (Connection connection = pool.getConnection()) {
+                assertThat(cache.prepare(connection, "SELECT 1")).isSameAs(statement);
+            }
+        }
+    }
+
+    @Override
+    public StatementCache getStatementCache() {
+        return cache;
+    }
+
+    @Override
+    public Connection getConnection() {
+        return embeddedDb.getConnection();
+    }
+}
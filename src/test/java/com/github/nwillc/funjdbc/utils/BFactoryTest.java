@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc.utils;
+
+import com.github.nwillc.funjdbc.functions.Binder;
+import mockit.Expectations;
+import mockit.Mocked;
+import mockit.Verifications;
+import mockit.integration.junit4.JMockit;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@RunWith(JMockit.class)
+public class BFactoryTest {
+    private BFactory<Bean> factory;
+    @Mocked
+    PreparedStatement statement;
+
+    @Before
+    public void setUp() {
+        factory = new BFactory<>();
+    }
+
+    @Test
+    public void testNoBindings() {
+        assertThatThrownBy(() -> factory.getBinder()).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void testNullGetter() {
+        assertThatThrownBy(() -> factory.add(null, PreparedStatement::setString, 1)).isInstanceOf(NullPointerException.class);
+    }
+
+    @Test
+    public void testBindings() throws Exception {
+        final Binder<Bean> binder = factory
+                .add(Bean::getName, PreparedStatement::setString, 1)
+                .addInt(Bean::getCount, PreparedStatement::setInt, 2)
+                .addLong(Bean::getId, PreparedStatement::setLong, 3)
+                .addDouble(Bean::getScore, PreparedStatement::setDouble, 4)
+                .addBoolean(Bean::isActive, PreparedStatement::setBoolean, 5)
+                .getBinder();
+
+        binder.bind(statement, new Bean("name", 2, 3L, 4.5, true));
+
+        new Verifications() {{
+            statement.setString(1, "name");
+            statement.setInt(2, 2);
+            statement.setLong(3, 3L);
+            statement.setDouble(4, 4.5);
+            statement.setBoolean(5, true);
+        }};
+    }
+
+    @Test
+    public void testOffset() throws Exception {
+        final Binder<Bean> binder = factory
+                .add(Bean::getName, PreparedStatement::setString, 1)
+                .addInt(Bean::getCount, PreparedStatement::setInt, 2)
+                .getBinder();
+
+        binder.bind(statement, 2, new Bean("name", 2, 3L, 4.5, true));
+
+        new Verifications() {{
+            statement.setString(3, "name");
+            statement.setInt(4, 2);
+        }};
+    }
+
+    @Test(expected = SQLException.class)
+    public void testSetterException() throws Exception {
+        final Binder<Bean> binder = factory.add(Bean::getName, PreparedStatement::setString, 1).getBinder();
+
+        new Expectations() {{
+            statement.setString(1, anyString);
+            result = new SQLException();
+        }};
+
+        binder.bind(statement, new Bean("name", 0, 0L, 0.0, false));
+    }
+
+    private static class Bean {
+        private final String name;
+        private final int count;
+        private final long id;
+        private final double score;
+        private final boolean active;
+
+        Bean(String name, int count, long id, double score, boolean active) {
+            this.name = name;
+            this.count = count;
+            this.id = id;
+            this.score = score;
+            this.active = active;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        int getCount() {
+            return count;
+        }
+
+        long getId() {
+            return id;
+        }
+
+        double getScore() {
+            return score;
+        }
+
+        boolean isActive() {
+            return active;
+        }
+    }
+}
@@ -29,6 +29,7 @@ import org.junit.runner.RunWith;
 
 import java.math.BigDecimal;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Time;
 import java.sql.Timestamp;
@@ -43,6 +44,8 @@ public class EFactoryTest {
     private EFactory<Bean> factory;
     @Mocked
     ResultSet resultSet;
+    @Mocked
+    ResultSetMetaData metaData;
 
     @Before
     public void setUp() {
@@ -352,6 +355,131 @@ public class EFactoryTest {
         assertThat(bean.one).isEqualTo(42);
     }
 
+    @Test
+    public void testByName() throws Exception {
+        final Extractor<Bean> extractor = factory
+                .addByName(Bean::setOne, ResultSet::getInt, "id")
+                .addByName(Bean::setTwo, ResultSet::getString, "WORD")
+                .withFactory(Bean::new)
+                .getExtractor();
+
+        new Expectations() {{
+            resultSet.getMetaData();
+            result = metaData;
+            times = 1;
+            metaData.getColumnCount();
+            result = 2;
+            metaData.getColumnLabel(1);
+            result = "ID";
+            metaData.getColumnLabel(2);
+            result = "Word";
+            resultSet.getInt(1);
+            result = 42;
+            resultSet.getString(2);
+            result = "two";
+            resultSet.findColumn(anyString);
+            times = 0;
+        }};
+
+        for (int i = 0; i < 3; i++) {
+            final Bean bean = extractor.extract(resultSet);
+            assertThat(bean.one).isEqualTo(42);
+            assertThat(bean.two).isEqualTo("two");
+        }
+    }
+
+    @Test
+    public void testByNameInterleaved(@Mocked ResultSet other, @Mocked ResultSetMetaData otherMetaData)
+            throws Exception {
+        final Extractor<Bean> extractor = factory
+                .addByName(Bean::setTwo, ResultSet::getString, "WORD")
+                .withFactory(Bean::new)
+                .getExtractor();
+
+        new Expectations() {{
+            resultSet.getMetaData();
+            result = metaData;
+            times = 1;
+            metaData.getColumnCount();
+            result = 1;
+            metaData.getColumnLabel(1);
+            result = "WORD";
+            resultSet.getString(1);
+            result = "one";
+            other.getMetaData();
+            result = otherMetaData;
+            times = 1;
+            otherMetaData.getColumnCount();
+            result = 2;
+            otherMetaData.getColumnLabel(1);
+            result = "ID";
+            otherMetaData.getColumnLabel(2);
+            result = "WORD";
+            other.getString(2);
+            result = "two";
+        }};
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(extractor.extract(resultSet).two).isEqualTo("one");
+            assertThat(extractor.extract(other).two).isEqualTo("two");
+        }
+    }
+
+    @Test
+    public void testByNameFindColumn() throws Exception {
+        final Extractor<Bean> extractor = factory
+                .addByName(Bean::setTwo, ResultSet::getString, "T.WORD")
+                .withFactory(Bean::new)
+                .getExtractor();
+
+        new Expectations() {{
+            resultSet.getMetaData();
+            result = metaData;
+            metaData.getColumnCount();
+            result = 0;
+            resultSet.findColumn("T.WORD");
+            result = 3;
+            times = 1;
+            resultSet.getString(3);
+            result = "two";
+        }};
+
+        assertThat(extractor.extract(resultSet).two).isEqualTo("two");
+        assertThat(extractor.extract(resultSet).two).isEqualTo("two");
+    }
+
+    @Test(expected = UncheckedSQLException.class)
+    public void testByNameMissing() throws Exception {
+        final Extractor<Bean> extractor = factory
+                .addByName(Bean::setTwo, ResultSet::getString, "nope")
+                .withFactory(Bean::new)
+                .getExtractor();
+
+        new Expectations() {{
+            resultSet.findColumn("nope");
+            result = new SQLException();
+        }};
+
+        extractor.extract(resultSet);
+    }
+
+    @Test
+    public void testLaterAddsNotSeen() throws Exception {
+        final Extractor<Bean> extractor = factory.add(Bean::setOne, ResultSet::getInt, 1).withFactory(Bean::new).getExtractor();
+        factory.add(Bean::setTwo, ResultSet::getString, 2);
+
+        new Expectations() {{
+            resultSet.getInt(1);
+            result = 42;
+            resultSet.getString(anyInt);
+            times = 0;
+        }};
+
+        final Bean bean = extractor.extract(resultSet);
+        assertThat(bean.one).isEqualTo(42);
+        assertThat(bean.two).isNull();
+    }
+
 
     @Test
     public void testMultiple() throws Exception {
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class IntObjectMapTest {
+    private IntObjectMap<String> map;
+
+    @Before
+    public void setUp() {
+        map = new IntObjectMap<>();
+    }
+
+    @Test
+    public void shouldBeEmpty() {
+        assertThat(map.isEmpty()).isTrue();
+        assertThat(map.size()).isEqualTo(0);
+        assertThat(map.get(1)).isNull();
+        assertThat(map.containsKey(0)).isFalse();
+    }
+
+    @Test
+    public void shouldPutAndGet() {
+        assertThat(map.put(1, "a")).isNull();
+        assertThat(map.put(-1, "b")).isNull();
+        assertThat(map.put(1, "c")).isEqualTo("a");
+        assertThat(map.size()).isEqualTo(2);
+        assertThat(map.get(1)).isEqualTo("c");
+        assertThat(map.get(-1)).isEqualTo("b");
+        assertThat(map.containsKey(2)).isFalse();
+    }
+
+    @Test
+    public void shouldHandleZeroKey() {
+        assertThat(map.put(0, "zero")).isNull();
+        assertThat(map.put(0, "nil")).isEqualTo("zero");
+        assertThat(map.size()).isEqualTo(1);
+        assertThat(map.containsKey(0)).isTrue();
+        assertThat(map.get(0)).isEqualTo("nil");
+    }
+
+    @Test
+    public void shouldGrow() {
+        for (int i = 0; i < 10_000; i++) {
+            map.put(i * 31, Integer.toString(i));
+        }
+        assertThat(map.size()).isEqualTo(10_000);
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(map.get(i * 31)).isEqualTo(Integer.toString(i));
+        }
+        assertThat(map.get(1)).isNull();
+    }
+
+    @Test
+    public void shouldForEach() {
+        map.put(0, "a");
+        map.put(Integer.MAX_VALUE, "b");
+        map.put(Integer.MIN_VALUE, "c");
+        final Map<Integer, String> copy = new HashMap<>();
+        map.forEach(copy::put);
+        assertThat(copy).hasSize(3).containsEntry(0, "a").containsEntry(Integer.MAX_VALUE, "b")
+                .containsEntry(Integer.MIN_VALUE, "c");
+    }
+
+    @Test
+    public void shouldClear() {
+        map.put(0, "a");
+        map.put(1, "b");
+        map.clear();
+        assertThat(map.isEmpty()).isTrue();
+        assertThat(map.get(0)).isNull();
+        assertThat(map.get(1)).isNull();
+    }
+
+    @Test
+    public void shouldRejectNullValue() {
+        assertThatThrownBy(() -> map.put(1, null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void shouldRejectNegativeSize() {
+        assertThatThrownBy(() -> new IntObjectMap<String>(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LongObjectMapTest {
+    private LongObjectMap<String> map;
+
+    @Before
+    public void setUp() {
+        map = new LongObjectMap<>();
+    }
+
+    @Test
+    public void shouldBeEmpty() {
+        assertThat(map.isEmpty()).isTrue();
+        assertThat(map.size()).isEqualTo(0);
+        assertThat(map.get(1L)).isNull();
+        assertThat(map.containsKey(0L)).isFalse();
+    }
+
+    @Test
+    public void shouldPutAndGet() {
+        assertThat(map.put(1L, "a")).isNull();
+        assertThat(map.put(-1L, "b")).isNull();
+        assertThat(map.put(1L, "c")).isEqualTo("a");
+        assertThat(map.size()).isEqualTo(2);
+        assertThat(map.get(1L)).isEqualTo("c");
+        assertThat(map.get(-1L)).isEqualTo("b");
+        assertThat(map.containsKey(2L)).isFalse();
+    }
+
+    @Test
+    public void shouldHandleZeroKey() {
+        assertThat(map.put(0L, "zero")).isNull();
+        assertThat(map.put(0L, "nil")).isEqualTo("zero");
+        assertThat(map.size()).isEqualTo(1);
+        assertThat(map.containsKey(0L)).isTrue();
+        assertThat(map.get(0L)).isEqualTo("nil");
+    }
+
+    @Test
+    public void shouldGrow() {
+        for (long i = 0; i < 10_000; i++) {
+            map.put(i * 31, Long.toString(i));
+        }
+        assertThat(map.size()).isEqualTo(10_000);
+        for (long i = 0; i < 10_000; i++) {
+            assertThat(map.get(i * 31)).isEqualTo(Long.toString(i));
+        }
+        assertThat(map.get(1L)).isNull();
+    }
+
+    @Test
+    public void shouldForEach() {
+        map.put(0L, "a");
+        map.put(Long.MAX_VALUE, "b");
+        map.put(Long.MIN_VALUE, "c");
+        final Map<Long, String> copy = new HashMap<>();
+        map.forEach(copy::put);
+        assertThat(copy).hasSize(3).containsEntry(0L, "a").containsEntry(Long.MAX_VALUE, "b")
+                .containsEntry(Long.MIN_VALUE, "c");
+    }
+
+    @Test
+    public void shouldClear() {
+        map.put(0L, "a");
+        map.put(1L, "b");
+        map.clear();
+        assertThat(map.isEmpty()).isTrue();
+        assertThat(map.get(0L)).isNull();
+        assertThat(map.get(1L)).isNull();
+    }
+
+    @Test
+    public void shouldRejectNullValue() {
+        assertThatThrownBy(() -> map.put(1L, null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void shouldRejectNegativeSize() {
+        assertThatThrownBy(() -> new LongObjectMap<String>(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
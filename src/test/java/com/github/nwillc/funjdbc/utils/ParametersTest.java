@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc.utils;
+
+import com.github.nwillc.contracts.UtilityClassContract;
+import mockit.Mocked;
+import mockit.Verifications;
+import mockit.integration.junit4.JMockit;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+
+@RunWith(JMockit.class)
+public class ParametersTest extends UtilityClassContract {
+    @Mocked
+    PreparedStatement statement;
+
+    @Override
+    public Class<?> getClassToTest() {
+        return Parameters.class;
+    }
+
+    @Test
+    public void testBindNull() throws Exception {
+        Parameters.bind(statement, (Object[]) null);
+        new Verifications() {{
+            statement.setObject(anyInt, any);
+            times = 0;
+        }};
+    }
+
+    @Test
+    public void testBindTyped() throws Exception {
+        Parameters.bind(statement, "a", 1, 2L, 3.0, true, BigDecimal.ONE, null);
+        new Verifications() {{
+            statement.setString(1, "a");
+            statement.setInt(2, 1);
+            statement.setLong(3, 2L);
+            statement.setDouble(4, 3.0);
+            statement.setBoolean(5, true);
+            statement.setBigDecimal(6, BigDecimal.ONE);
+            statement.setNull(7, Types.NULL);
+        }};
+    }
+
+    @Test
+    public void testSetObjectFallback() throws Exception {
+        final Object value = new StringBuilder("x");
+        Parameters.set(statement, 1, value);
+        new Verifications() {{
+            statement.setObject(1, value);
+        }};
+    }
+
+    @Test
+    public void testOffset() throws Exception {
+        final PreparedStatement offset = Parameters.offset(statement, 2);
+        offset.setString(1, "a");
+        offset.setNull(2, Types.NULL);
+        offset.setFetchSize(10);
+        new Verifications() {{
+            statement.setString(3, "a");
+            statement.setNull(4, Types.NULL);
+            statement.setFetchSize(10);
+        }};
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PrefetchIteratorTest {
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testReadsAll() {
+        final List<Integer> seen = new ArrayList<>();
+        try (PrefetchIterator<Integer> iterator = new PrefetchIterator<>(IntStream.range(0, 1000).iterator(), 4, executor)) {
+            iterator.forEachRemaining(seen::add);
+            assertThat(iterator.hasNext()).isFalse();
+            assertThatThrownBy(iterator::next).isInstanceOf(NoSuchElementException.class);
+        }
+        assertThat(seen).hasSize(1000);
+        assertThat(seen.get(999)).isEqualTo(999);
+    }
+
+    @Test
+    public void testNullElements() {
+        final List<String> seen = new ArrayList<>();
+        try (PrefetchIterator<String> iterator =
+                     new PrefetchIterator<>(Arrays.asList("a", null, "c", null).iterator(), 2, executor)) {
+            iterator.forEachRemaining(seen::add);
+            assertThat(iterator.hasNext()).isFalse();
+        }
+        assertThat(seen).containsExactly("a", null, "c", null);
+    }
+
+    @Test
+    public void testBoundedAndStopsOnClose() throws Exception {
+        final AtomicInteger read = new AtomicInteger();
+        final Iterator<Integer> endless = new Iterator<Integer>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                return read.getAndIncrement();
+            }
+        };
+        final PrefetchIterator<Integer> iterator = new PrefetchIterator<>(endless, 8, executor);
+        assertThat(iterator.next()).isEqualTo(0);
+        Thread.sleep(50);
+        assertThat(read.get()).isLessThanOrEqualTo(10);
+        iterator.close();
+        final int stoppedAt = read.get();
+        Thread.sleep(50);
+        assertThat(read.get()).isEqualTo(stoppedAt);
+        assertThat(iterator.hasNext()).isFalse();
+    }
+
+    @Test
+    public void testFailureRethrown() {
+        final Iterator<Integer> failing = new Iterator<Integer>() {
+            private int count;
+
+            @Override
+            public boolean hasNext() {
+                if (count == 3) {
+                    throw new IllegalStateException("read failed");
+                }
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                return count++;
+            }
+        };
+        final List<Integer> seen = new ArrayList<>();
+        try (PrefetchIterator<Integer> iterator = new PrefetchIterator<>(failing, 2, executor)) {
+            assertThatThrownBy(() -> iterator.forEachRemaining(seen::add)).isInstanceOf(IllegalStateException.class);
+        }
+        assertThat(seen).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    public void testBadCapacity() {
+        assertThatThrownBy(() -> new PrefetchIterator<>(IntStream.range(0, 1).iterator(), 0, executor))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
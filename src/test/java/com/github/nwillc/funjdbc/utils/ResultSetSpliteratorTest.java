@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ResultSetSpliteratorTest {
+    private static final List<Integer> ROWS = IntStream.range(0, 10_000).boxed().collect(Collectors.toList());
+
+    @Test
+    public void testSplitBatchesGrow() {
+        final ResultSetSpliterator<Integer> spliterator = new ResultSetSpliterator<>(ROWS.iterator());
+        final Spliterator<Integer> first = spliterator.trySplit();
+        final Spliterator<Integer> second = spliterator.trySplit();
+        assertThat(first.getExactSizeIfKnown()).isEqualTo(ResultSetSpliterator.INITIAL_BATCH);
+        assertThat(second.getExactSizeIfKnown()).isEqualTo(ResultSetSpliterator.INITIAL_BATCH * 2);
+        assertThat(first.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED)).isTrue();
+        assertThat(spliterator.hasCharacteristics(Spliterator.SIZED)).isFalse();
+        assertThat(spliterator.hasCharacteristics(Spliterator.ORDERED)).isTrue();
+        assertThat(spliterator.hasCharacteristics(Spliterator.NONNULL)).isFalse();
+        final List<Integer> seen = new ArrayList<>();
+        first.forEachRemaining(seen::add);
+        second.forEachRemaining(seen::add);
+        spliterator.tryAdvance(seen::add);
+        assertThat(seen).containsExactlyElementsOf(ROWS.subList(0, ResultSetSpliterator.INITIAL_BATCH * 3 + 1));
+    }
+
+    @Test
+    public void testSplitEmpty() {
+        final ResultSetSpliterator<Integer> spliterator =
+                new ResultSetSpliterator<>(Collections.<Integer>emptyList().iterator());
+        assertThat(spliterator.trySplit()).isNull();
+        assertThat(spliterator.tryAdvance(i -> { })).isFalse();
+    }
+
+    @Test
+    public void testSplitPartialBatch() {
+        final ResultSetSpliterator<Integer> spliterator = new ResultSetSpliterator<>(ROWS.subList(0, 10).iterator());
+        assertThat(spliterator.trySplit().getExactSizeIfKnown()).isEqualTo(10);
+        assertThat(spliterator.trySplit()).isNull();
+    }
+
+    @Test
+    public void testParallelPreservesOrder() {
+        final List<Integer> doubled = StreamSupport.stream(new ResultSetSpliterator<>(ROWS.iterator()), true)
+                .map(i -> i * 2)
+                .collect(Collectors.toList());
+        assertThat(doubled).hasSize(ROWS.size());
+        for (int i = 0; i < doubled.size(); i++) {
+            assertThat(doubled.get(i)).isEqualTo(i * 2);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc.utils;
+
+import com.github.nwillc.funjdbc.DbAccessor;
+import com.github.nwillc.funjdbc.TestDbInitialization;
+import org.junit.Rule;
+import org.junit.Test;
+import org.zapodot.junit.db.EmbeddedDatabaseRule;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.github.nwillc.funjdbc.SqlStatement.sql;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RowBatchTest implements DbAccessor {
+    @Rule
+    public final EmbeddedDatabaseRule embeddedDb = EmbeddedDatabaseRule
+            .builder()
+            .initializedByPlugin(new TestDbInitialization())
+            .build();
+
+    @Test
+    public void testChunks() throws Exception {
+        try (Stream<RowBatch<String>> batches = dbQueryChunked(sql("SELECT WORD FROM WORDS ORDER BY WORD"),
+                rs -> rs.getString(1), 2)) {
+            final List<RowBatch<String>> list = batches.collect(Collectors.toList());
+            assertThat(list).hasSize(2);
+            assertThat(list.get(0)).containsExactly("a", "a");
+            assertThat(list.get(1)).containsExactly("b");
+            assertThat(list.get(0)).isNotSameAs(list.get(1));
+        }
+    }
+
+    @Test
+    public void testReuse() throws Exception {
+        final List<List<String>> copies = new ArrayList<>();
+        final List<RowBatch<String>> seen = new ArrayList<>();
+        try (Stream<RowBatch<String>> batches = dbQueryChunked(sql("SELECT WORD FROM WORDS ORDER BY WORD"),
+                rs -> rs.getString(1), 2, true)) {
+            batches.forEach(batch -> {
+                seen.add(batch);
+                copies.add(new ArrayList<>(batch));
+            });
+        }
+        assertThat(copies).containsExactly(Arrays.asList("a", "a"), Collections.singletonList("b"));
+        assertThat(seen.get(0)).isSameAs(seen.get(1));
+    }
+
+    @Test
+    public void testSingleLargeChunk() throws Exception {
+        try (Stream<RowBatch<String>> batches = dbQueryChunked(sql("SELECT WORD FROM WORDS"), rs -> rs.getString(1), 100)) {
+            assertThat(batches.mapToInt(RowBatch::size).boxed().collect(Collectors.toList())).containsExactly(3);
+        }
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        try (Stream<RowBatch<String>> batches = dbQueryChunked(sql("SELECT WORD FROM WORDS WHERE 1 = 0"),
+                rs -> rs.getString(1), 2)) {
+            assertThat(batches.count()).isEqualTo(0);
+        }
+    }
+
+    @Test
+    public void testListContract() throws Exception {
+        try (Stream<RowBatch<String>> batches = dbQueryChunked(sql("SELECT WORD FROM WORDS"), rs -> rs.getString(1), 3)) {
+            final RowBatch<String> batch = batches.findFirst().orElseThrow(IllegalStateException::new);
+            assertThat(batch.toArray()).hasSize(3);
+            assertThatThrownBy(() -> batch.get(3)).isInstanceOf(IndexOutOfBoundsException.class);
+            assertThatThrownBy(() -> batch.add("c")).isInstanceOf(UnsupportedOperationException.class);
+        }
+    }
+
+    @Test
+    public void testNotAdvancedPastEnd() throws Exception {
+        final AtomicInteger exhaustedCalls = new AtomicInteger();
+        try (Connection connection = getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT WORD FROM WORDS")) {
+            final boolean[] done = {false};
+            final ResultSet counting = (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+                        if ("next".equals(method.getName())) {
+                            if (done[0]) {
+                                exhaustedCalls.incrementAndGet();
+                            }
+                            final boolean next = resultSet.next();
+                            done[0] = !next;
+                            return next;
+                        }
+                        return method.invoke(resultSet, args);
+                    });
+            try (Stream<RowBatch<String>> batches =
+                         RowBatch.chunks(ResultSetStream.stream(counting, rs -> rs.getString(1)), 2, false)) {
+                assertThat(batches.map(RowBatch::size).collect(Collectors.toList())).containsExactly(2, 1);
+            }
+            assertThat(exhaustedCalls.get()).isEqualTo(0);
+        }
+    }
+
+    @Test
+    public void testInterleavedReuse() throws Exception {
+        try (Stream<RowBatch<String>> first = dbQueryChunked(sql("SELECT WORD FROM WORDS ORDER BY WORD"),
+                rs -> rs.getString(1), 2, true);
+             Stream<RowBatch<String>> second = dbQueryChunked(sql("SELECT WORD FROM WORDS ORDER BY WORD DESC"),
+                     rs -> rs.getString(1), 2, true)) {
+            final Iterator<RowBatch<String>> ascending = first.iterator();
+            final Iterator<RowBatch<String>> descending = second.iterator();
+            final RowBatch<String> low = ascending.next();
+            final RowBatch<String> high = descending.next();
+            assertThat(low).isNotSameAs(high);
+            assertThat(low).containsExactly("a", "a");
+            assertThat(high).containsExactly("b", "a");
+        }
+    }
+
+    @Test
+    public void testBadChunkSize() {
+        assertThatThrownBy(() -> RowBatch.chunks(Stream.empty(), 0, false))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Override
+    public Connection getConnection() {
+        return embeddedDb.getConnection();
+    }
+}
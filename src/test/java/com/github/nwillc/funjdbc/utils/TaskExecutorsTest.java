@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2018, nwillc@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ *
+ */
+
+package com.github.nwillc.funjdbc.utils;
+
+import com.github.nwillc.contracts.UtilityClassContract;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TaskExecutorsTest extends UtilityClassContract {
+    @Override
+    public Class<?> getClassToTest() {
+        return TaskExecutors.class;
+    }
+
+    @Test
+    public void testShared() throws Exception {
+        final Executor executor = TaskExecutors.shared();
+        assertThat(executor).isSameAs(TaskExecutors.shared());
+        final Thread thread = CompletableFuture.supplyAsync(Thread::currentThread, executor).get();
+        assertThat(thread.isDaemon()).isTrue();
+        assertThat(thread.getName()).startsWith("fun-jdbc-");
+    }
+
+    @Test
+    public void testPerTask() throws Exception {
+        final Executor executor = TaskExecutors.perTask();
+        assertThat(executor).isSameAs(TaskExecutors.perTask());
+        assertThat(TaskExecutors.isVirtual()).isEqualTo(executor != TaskExecutors.shared());
+        assertThat(CompletableFuture.supplyAsync(() -> "done", executor).get()).isEqualTo("done");
+    }
+}